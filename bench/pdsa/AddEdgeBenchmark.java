@@ -0,0 +1,44 @@
+package pdsa;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Class benchmarking addEdge throughput while a graph grows from empty during each iteration.
+// Edges join random cities out of a fixed pool, so the pool size decides how quickly the
+// adjacency lists get long; run with "-prof gc" to see the allocation per added edge.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddEdgeBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"1000", "100000"})
+    public int cities;
+
+    private String[] names;
+    private Graph graph;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void names() {
+        names = new String[cities];
+        for (int i = 0; i < cities; i++) {
+            names[i] = GraphGenerators.name(i);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        graph = new Graph(0);
+        random = new Random(SEED);
+    }
+
+    @Benchmark
+    public void addEdge() {
+        graph.addEdge(names[random.nextInt(names.length)], names[random.nextInt(names.length)], 1 + random.nextInt(100));
+    }
+}
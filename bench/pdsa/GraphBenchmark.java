@@ -0,0 +1,133 @@
+package pdsa;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Class benchmarking the Graph query methods on synthetic graphs of several shapes and sizes.
+// Queries are sampled so JMH reports latency percentiles; run with "-prof gc" (as the Ant bench target
+// and main do) to also get the allocation rate per operation. Every query benchmark cycles through a
+// fixed list of random pairs, and the query cache is disabled except in shortestPathCached.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+    private static final int QUERIES = 1024;           // Distinct queries cycled through by every benchmark
+    private static final int CACHED_QUERIES = 64;      // Few enough to stay in the cache
+    private static final int NEARBY_STEPS = 3;         // Random-walk length for findPathsMaxDistance pairs
+    private static final long SEED = 42;
+
+    @Param({"grid", "geometric", "scaleFree"})
+    public String shape;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Graph graph;
+    private Graph cachedGraph;
+    private String[] starts;
+    private String[] ends;
+    private String[] nearbyEnds;
+    private int[] budgets;
+    private List<Set<String>> avoided;
+    private List<List<String>> interestPoints;
+
+    // Class giving each benchmark thread its own position in the query list
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int advance() {
+            next = (next + 1) & (QUERIES - 1);
+            return next;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = GraphGenerators.generate(shape, size, SEED, new Graph(0));
+        cachedGraph = GraphGenerators.generate(shape, size, SEED, new Graph());
+        Random random = new Random(SEED);
+        List<String> nodes = new ArrayList<>(graph.adjacencyList.keySet());
+        Collections.sort(nodes);
+
+        starts = new String[QUERIES];
+        ends = new String[QUERIES];
+        nearbyEnds = new String[QUERIES];
+        budgets = new int[QUERIES];
+        avoided = new ArrayList<>(QUERIES);
+        interestPoints = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = pick(nodes, random);
+            ends[i] = pick(nodes, random);
+            avoided.add(new HashSet<>(List.of(pick(nodes, random), pick(nodes, random), pick(nodes, random))));
+            interestPoints.add(List.of(pick(nodes, random), pick(nodes, random), pick(nodes, random)));
+
+            // Path enumeration explodes between far-apart nodes, so pair each start with a node a few hops
+            // away and allow 10% over the shortest distance
+            String end = starts[i];
+            for (int step = 0; step < NEARBY_STEPS; step++) {
+                List<Graph.Edge> edges = graph.adjacencyList.get(end);
+                end = edges.get(random.nextInt(edges.size())).destination;
+            }
+            nearbyEnds[i] = end;
+            budgets[i] = graph.shortestPath(starts[i], end).distance * 11 / 10;
+        }
+    }
+
+    private static String pick(List<String> nodes, Random random) {
+        return nodes.get(random.nextInt(nodes.size()));
+    }
+
+    @Benchmark
+    public void shortestPath(Cursor cursor, Blackhole blackhole) {
+        int i = cursor.advance();
+        blackhole.consume(graph.shortestPath(starts[i], ends[i]));
+    }
+
+    @Benchmark
+    public void shortestPathCached(Cursor cursor, Blackhole blackhole) {
+        int i = cursor.advance() & (CACHED_QUERIES - 1);
+        blackhole.consume(cachedGraph.shortestPath(starts[i], ends[i]));
+    }
+
+    @Benchmark
+    public void pathAvoidingNodes(Cursor cursor, Blackhole blackhole) {
+        int i = cursor.advance();
+        blackhole.consume(graph.pathAvoidingNodes(starts[i], ends[i], avoided.get(i)));
+    }
+
+    @Benchmark
+    public void findPathWithMinStops(Cursor cursor, Blackhole blackhole) {
+        int i = cursor.advance();
+        blackhole.consume(graph.findPathWithMinStops(starts[i], ends[i]));
+    }
+
+    @Benchmark
+    public void findPathsMaxDistance(Cursor cursor, Blackhole blackhole) {
+        int i = cursor.advance();
+        blackhole.consume(graph.findPathsMaxDistance(starts[i], nearbyEnds[i], budgets[i]));
+    }
+
+    @Benchmark
+    public void pathThroughInterestPoints(Cursor cursor, Blackhole blackhole) {
+        int i = cursor.advance();
+        blackhole.consume(graph.pathThroughInterestPoints(starts[i], interestPoints.get(i), ends[i]));
+    }
+
+    // Method to run every benchmark of the suite with the GC profiler from the command line
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include("pdsa\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package pdsa;
+
+import java.util.*;
+
+// Class generating synthetic graphs of a given size for the benchmarks.
+// Grids look like city street networks, random geometric graphs like regional road networks,
+// and scale-free graphs (Barabasi-Albert) stress the searches with a few very busy hubs.
+// Node names are "n0", "n1", ... (nodes left without edges are not on the map) and every
+// generator is deterministic for a given seed.
+final class GraphGenerators {
+    private GraphGenerators() {
+    }
+
+    // Method to add the edges of a graph of the named shape, "grid", "geometric" or "scaleFree", to graph
+    static Graph generate(String shape, int nodes, long seed, Graph graph) {
+        switch (shape) {
+            case "grid":
+                return grid(nodes, seed, graph);
+            case "geometric":
+                return randomGeometric(nodes, 8, seed, graph);
+            case "scaleFree":
+                return scaleFree(nodes, 3, seed, graph);
+            default:
+                throw new IllegalArgumentException("Unknown graph shape " + shape);
+        }
+    }
+
+    // Method to build a square grid of about the given number of nodes with weights 10 to 19
+    static Graph grid(int nodes, long seed, Graph graph) {
+        Random random = new Random(seed);
+        int side = (int) Math.ceil(Math.sqrt(nodes));
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int node = row * side + column;
+                if (column > 0) graph.addEdge(name(node - 1), name(node), 10 + random.nextInt(10));
+                if (row > 0) graph.addEdge(name(node - side), name(node), 10 + random.nextInt(10));
+            }
+        }
+        return graph;
+    }
+
+    // Method to scatter nodes over the unit square and join every pair closer than the radius that gives
+    // the wanted average degree; weights are the distances scaled to integers
+    static Graph randomGeometric(int nodes, int averageDegree, long seed, Graph graph) {
+        Random random = new Random(seed);
+        double radius = Math.sqrt(averageDegree / (Math.PI * nodes));
+        int cells = Math.max(1, (int) (1 / radius));
+        double[] xs = new double[nodes];
+        double[] ys = new double[nodes];
+        List<List<Integer>> buckets = new ArrayList<>(cells * cells);
+        for (int i = 0; i < cells * cells; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int node = 0; node < nodes; node++) {
+            xs[node] = random.nextDouble();
+            ys[node] = random.nextDouble();
+            int cellX = Math.min(cells - 1, (int) (xs[node] * cells));
+            int cellY = Math.min(cells - 1, (int) (ys[node] * cells));
+            // Cells are at least one radius wide, so only the neighbouring cells can hold close nodes
+            for (int x = Math.max(0, cellX - 1); x <= Math.min(cells - 1, cellX + 1); x++) {
+                for (int y = Math.max(0, cellY - 1); y <= Math.min(cells - 1, cellY + 1); y++) {
+                    for (int other : buckets.get(x * cells + y)) {
+                        double distance = Math.hypot(xs[node] - xs[other], ys[node] - ys[other]);
+                        if (distance <= radius) {
+                            graph.addEdge(name(other), name(node), Math.max(1, (int) Math.round(distance * 10_000)));
+                        }
+                    }
+                }
+            }
+            buckets.get(cellX * cells + cellY).add(node);
+        }
+        return graph;
+    }
+
+    // Method to grow a Barabasi-Albert graph: every new node links to edgesPerNode existing nodes chosen
+    // with probability proportional to their degree; weights 1 to 100
+    static Graph scaleFree(int nodes, int edgesPerNode, long seed, Graph graph) {
+        Random random = new Random(seed);
+        int[] endpoints = new int[2 * nodes * edgesPerNode];    // Every edge end once, so a uniform pick is degree-weighted
+        int size = 0;
+        int core = Math.min(nodes, edgesPerNode + 1);
+        for (int a = 0; a < core; a++) {
+            for (int b = a + 1; b < core; b++) {
+                graph.addEdge(name(a), name(b), 1 + random.nextInt(100));
+                endpoints[size++] = a;
+                endpoints[size++] = b;
+            }
+        }
+        Set<Integer> chosen = new HashSet<>();
+        for (int node = core; node < nodes; node++) {
+            chosen.clear();
+            while (chosen.size() < edgesPerNode) {
+                chosen.add(endpoints[random.nextInt(size)]);
+            }
+            for (int other : chosen) {
+                graph.addEdge(name(node), name(other), 1 + random.nextInt(100));
+                endpoints[size++] = node;
+                endpoints[size++] = other;
+            }
+        }
+        return graph;
+    }
+
+    static String name(int node) {
+        return "n" + node;
+    }
+}
@@ -0,0 +1,226 @@
+package pdsa;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Class running A* over a CsrGraph with an admissible lower bound on the distance to the target.
+// Two bounds are supported: straight-line distance between city coordinates, scaled by the
+// smallest weight per unit of length on any edge, and ALT, the triangle inequality over exact
+// distances to a few landmark nodes (edges run both ways, so one array per landmark serves as the
+// distance both to and from it). Both never overestimate, so the first time the target is
+// taken from the queue its distance equals the Dijkstra distance; only the visited area shrinks.
+// Like a ContractionHierarchy it belongs to one graph version and must be rebuilt after changes.
+class AStarSearch {
+    private static final int UNREACHABLE = ShortestPathEngine.UNREACHABLE;
+    private static final int SEEDS_PER_LANDMARK = 2;    // Start points searched in parallel per landmark wanted
+
+    private static final ThreadLocal<ShortestPathEngine.Scratch> SCRATCH = ThreadLocal.withInitial(ShortestPathEngine.Scratch::new);
+
+    private final CsrGraph graph;
+    private final double[] xs;           // Coordinates of every node, or null when landmarks are used
+    private final double[] ys;
+    private final double scale;          // Smallest edge weight per unit of straight-line length
+    private final int[] landmarks;
+    private final int[] landmarkDistances;    // Distance between landmark i and node v at [i * nodeCount + v]
+
+    private AStarSearch(CsrGraph graph, double[] xs, double[] ys, double scale, int[] landmarks, int[] landmarkDistances) {
+        this.graph = graph;
+        this.xs = xs;
+        this.ys = ys;
+        this.scale = scale;
+        this.landmarks = landmarks;
+        this.landmarkDistances = landmarkDistances;
+    }
+
+    // Method to build a coordinate heuristic for the current state of a graph; every city needs an {x, y} pair
+    static AStarSearch withCoordinates(Graph graph, Map<String, double[]> coordinates) {
+        return withCoordinates(graph.freeze(), coordinates);
+    }
+
+    // Method to build a coordinate heuristic for a frozen graph
+    static AStarSearch withCoordinates(CsrGraph graph, Map<String, double[]> coordinates) {
+        int nodeCount = graph.nodeCount();
+        double[] xs = new double[nodeCount];
+        double[] ys = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            double[] point = coordinates.get(graph.name(node));
+            if (point == null || point.length < 2) {
+                throw new IllegalArgumentException("No coordinates for city " + graph.name(node));
+            }
+            xs[node] = point[0];
+            ys[node] = point[1];
+        }
+        // The bound stays admissible as long as no edge is cheaper per unit of length than the cheapest one seen here
+        double scale = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = graph.edgeStart(node); edge < graph.edgeEnd(node); edge++) {
+                double length = Math.hypot(xs[node] - xs[graph.target(edge)], ys[node] - ys[graph.target(edge)]);
+                if (length > 0) {
+                    scale = Math.min(scale, graph.weight(edge) / length);
+                }
+            }
+        }
+        if (scale == Double.POSITIVE_INFINITY) {
+            scale = 0;
+        }
+        return new AStarSearch(graph, xs, ys, scale, null, null);
+    }
+
+    // Method to build an ALT heuristic with the given number of landmarks for the current state of a graph
+    static AStarSearch withLandmarks(Graph graph, int count) {
+        return withLandmarks(graph.freeze(), count);
+    }
+
+    // Method to build an ALT heuristic for a frozen graph. Seeds spread over the node ids are searched in
+    // parallel to find far-away candidates, the candidates' distances are computed in parallel, and the
+    // landmarks are then picked greedily so each one is as far as possible from those already chosen.
+    static AStarSearch withLandmarks(CsrGraph graph, int count) {
+        int nodeCount = graph.nodeCount();
+        count = Math.min(count, nodeCount);
+        if (count <= 0) {
+            return new AStarSearch(graph, null, null, 0, new int[0], new int[0]);
+        }
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        int seedCount = Math.min(nodeCount, count * SEEDS_PER_LANDMARK);
+        int[] candidates = IntStream.range(0, seedCount).parallel()
+                .map(i -> farthest(engine.distancesFrom((int) ((long) i * nodeCount / seedCount), null)))
+                .distinct()
+                .toArray();
+        int[][] candidateDistances = new int[candidates.length][];
+        IntStream.range(0, candidates.length).parallel()
+                .forEach(i -> candidateDistances[i] = engine.distancesFrom(candidates[i], null));
+
+        int chosenCount = Math.min(count, candidates.length);
+        int[] landmarks = new int[chosenCount];
+        int[] landmarkDistances = new int[chosenCount * nodeCount];
+        long[] spread = new long[candidates.length];    // Distance from each candidate to the nearest chosen landmark
+        Arrays.fill(spread, Long.MAX_VALUE);
+        for (int chosen = 0; chosen < chosenCount; chosen++) {
+            int best = 0;
+            for (int i = 1; i < candidates.length; i++) {
+                if (spread[i] > spread[best]) best = i;
+            }
+            landmarks[chosen] = candidates[best];
+            System.arraycopy(candidateDistances[best], 0, landmarkDistances, chosen * nodeCount, nodeCount);
+            for (int i = 0; i < candidates.length; i++) {
+                // Unreachable candidates lie in another component and stay the most attractive next choice
+                int distance = candidateDistances[best][candidates[i]];
+                spread[i] = Math.min(spread[i], distance == UNREACHABLE ? Long.MAX_VALUE - 1 : distance);
+            }
+            spread[best] = -1;
+        }
+        return new AStarSearch(graph, null, null, 0, landmarks, landmarkDistances);
+    }
+
+    // Method to find the reachable node farthest from the search source
+    private static int farthest(int[] distances) {
+        int farthest = 0;
+        long farthestDistance = -1;
+        for (int node = 0; node < distances.length; node++) {
+            if (distances[node] != UNREACHABLE && distances[node] > farthestDistance) {
+                farthest = node;
+                farthestDistance = distances[node];
+            }
+        }
+        return farthest;
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    int[] landmarks() {
+        return landmarks == null ? new int[0] : landmarks.clone();
+    }
+
+    // Method to check whether the heuristic still matches the graph; any weight or structural change invalidates it
+    boolean isCurrent(Graph source) {
+        return source.version() == graph.version();
+    }
+
+    // Method to get the number of nodes settled by the last query on the calling thread
+    static int lastSettled() {
+        return SCRATCH.get().settled;
+    }
+
+    // Method to find the shortest path from start node to end node
+    public Graph.PathWithDistance shortestPath(String start, String end) {
+        int source = graph.id(start);
+        int target = graph.id(end);
+        ShortestPathEngine.Scratch scratch = SCRATCH.get();
+        scratch.reset(graph.nodeCount());
+        if (source < 0 || target < 0 || !search(scratch, source, target)) {
+            return new Graph.PathWithDistance(Collections.emptyList(), 0); // Return empty path with 0 distance if no path is found
+        }
+        int length = 0;
+        for (int node = target; node != -1; node = scratch.previousNodes[node]) {
+            length++;
+        }
+        String[] path = new String[length];
+        for (int node = target, i = length - 1; node != -1; node = scratch.previousNodes[node], i--) {
+            path[i] = graph.name(node);
+        }
+        return new Graph.PathWithDistance(Arrays.asList(path), scratch.distance(target));
+    }
+
+    // Method to run A*; heap keys hold distance + bound, so an entry is stale when it no longer matches the node's distance
+    private boolean search(ShortestPathEngine.Scratch scratch, int source, int target) {
+        long sourceBound = bound(source, target);
+        if (sourceBound == UNREACHABLE) {
+            return false;
+        }
+        LongMinHeap heap = scratch.heap;
+        scratch.set(source, 0, -1);
+        heap.push(LongMinHeap.pack((int) sourceBound, source));
+
+        Deadline deadline = Deadline.current();
+        while (!heap.isEmpty()) {
+            long key = heap.pop();
+            int current = LongMinHeap.node(key);
+            int distance = scratch.distance(current);
+            if (LongMinHeap.distance(key) != distance + bound(current, target)) {
+                continue;    // Queued before the node's distance improved
+            }
+            scratch.settled++;
+            Deadline.check(deadline, scratch.settled);
+            if (current == target) {
+                return true;
+            }
+            for (int edge = graph.edgeStart(current), last = graph.edgeEnd(current); edge < last; edge++) {
+                int neighbor = graph.target(edge);
+                long newDist = (long) distance + graph.weight(edge);
+                if (newDist < scratch.distance(neighbor)) {
+                    long neighborBound = bound(neighbor, target);
+                    if (neighborBound == UNREACHABLE || newDist + neighborBound >= UNREACHABLE) {
+                        continue;    // Target cannot be reached from the neighbor
+                    }
+                    scratch.set(neighbor, (int) newDist, current);
+                    heap.push(LongMinHeap.pack((int) (newDist + neighborBound), neighbor));
+                }
+            }
+        }
+        return false;
+    }
+
+    // Method to compute a lower bound on the distance from node to target, UNREACHABLE if there is provably no path
+    private long bound(int node, int target) {
+        if (landmarks == null) {
+            double length = Math.hypot(xs[node] - xs[target], ys[node] - ys[target]);
+            return (long) Math.floor(scale * length * (1 - 1e-9));    // Shaved so rounding can never overestimate
+        }
+        int nodeCount = graph.nodeCount();
+        long best = 0;
+        for (int i = 0, offset = 0; i < landmarks.length; i++, offset += nodeCount) {
+            int toNode = landmarkDistances[offset + node];
+            int toTarget = landmarkDistances[offset + target];
+            if (toNode == UNREACHABLE || toTarget == UNREACHABLE) {
+                if (toNode != toTarget) {
+                    return UNREACHABLE;    // The landmark reaches one of them but not the other: different components
+                }
+                continue;
+            }
+            best = Math.max(best, Math.abs((long) toNode - toTarget));
+        }
+        return best;
+    }
+}
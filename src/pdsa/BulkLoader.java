@@ -0,0 +1,504 @@
+package pdsa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// Class importing large CSV or TSV files straight into a CsrGraph, without building a Graph first.
+// Edge lines are "source,destination,weight" and place lines are "city,place"; fields may be
+// double-quoted, blank lines and lines starting with '#' are skipped, and the delimiter is a tab
+// if one comes before any comma at the start of the file. The file is cut into chunks at line boundaries, chunks
+// are memory-mapped and parsed in parallel into primitive edge lists, and names are interned
+// through one concurrent dictionary. Interning order depends on thread timing, so the nodes are
+// then renumbered in name order and every import of a file gives the same ids. The CSR arrays are
+// filled in a single pass, and each node's edges are sorted so repeated edges (same pair and
+// weight, either direction) collapse; a self-loop keeps both its slots, as Graph.addEdge stores it.
+// Bad lines are skipped and reported with their line number.
+class BulkLoader {
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 64L << 20;
+    private static final int MAX_LINE_BYTES = 1 << 20;    // Chunks overlap by this much so their last line can be finished
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Consumer<Progress> listener;
+    private final LongAdder bytesDone = new LongAdder();
+    private final LongAdder linesDone = new LongAdder();
+    private final AtomicLong lastReport = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private long bytesTotal;
+
+    private BulkLoader(Consumer<Progress> listener) {
+        this.listener = listener;
+    }
+
+    // Class representing how far an import has got, passed to the progress listener about once a second
+    static class Progress {
+        final long bytesDone;
+        final long bytesTotal;
+        final long lines;
+        final long elapsedNanos;
+
+        Progress(long bytesDone, long bytesTotal, long lines, long elapsedNanos) {
+            this.bytesDone = bytesDone;
+            this.bytesTotal = bytesTotal;
+            this.lines = lines;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double linesPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f%% (%,d lines, %,.0f lines/s)",
+                    bytesTotal == 0 ? 100.0 : 100.0 * bytesDone / bytesTotal, lines, linesPerSecond());
+        }
+    }
+
+    // Class representing the outcome of an import: the graph and what was skipped on the way
+    static class Result {
+        final CsrGraph graph;
+        final long lines;
+        final long rejected;
+        final long duplicates;
+        final List<String> errors;    // The first MAX_REPORTED_ERRORS rejected lines, as "file:line: reason"
+        final long elapsedNanos;
+
+        Result(CsrGraph graph, long lines, long rejected, long duplicates, List<String> errors, long elapsedNanos) {
+            this.graph = graph;
+            this.lines = lines;
+            this.rejected = rejected;
+            this.duplicates = duplicates;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double linesPerSecond() {
+            return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d nodes, %,d edges from %,d lines (%,d rejected, %,d duplicate edges) in %.1f s, %,.0f lines/s",
+                    graph.nodeCount(), graph.edgeCount() / 2, lines, rejected, duplicates, elapsedNanos / 1e9, linesPerSecond());
+        }
+    }
+
+    // Method to import an edge file and an optional place file (places may be null); progress may be null
+    static Result load(Path edges, Path places, Consumer<Progress> progress) throws IOException {
+        return new BulkLoader(progress).run(edges, places);
+    }
+
+    private Result run(Path edgeFile, Path placeFile) throws IOException {
+        bytesTotal = Files.size(edgeFile) + (placeFile == null ? 0 : Files.size(placeFile));
+        List<Chunk> edgeChunks = parse(edgeFile, 3);
+        List<Chunk> placeChunks = placeFile == null ? List.of() : parse(placeFile, 2);
+
+        long lines = 0;
+        long rejected = 0;
+        List<String> errors = new ArrayList<>();
+        for (List<Chunk> chunks : List.of(edgeChunks, placeChunks)) {
+            long firstLine = 1;
+            for (Chunk chunk : chunks) {
+                for (int i = 0; i < chunk.errorLines.size; i++) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(chunk.file.getFileName() + ":" + (firstLine + chunk.errorLines.get(i)) + ": " + chunk.errors.get(i));
+                    }
+                }
+                rejected += chunk.rejected;
+                firstLine += chunk.lines;
+            }
+            lines += firstLine - 1;
+        }
+
+        String[] names = renumber(edgeChunks);
+        long[] duplicates = new long[1];
+        CsrGraph graph = build(names, edgeChunks, placeChunks, duplicates);
+        Result result = new Result(graph, lines, rejected, duplicates[0], errors, System.nanoTime() - startNanos);
+        if (listener != null) {
+            listener.accept(new Progress(bytesTotal, bytesTotal, lines, result.elapsedNanos));
+        }
+        return result;
+    }
+
+    // Class holding what one chunk produced: edges as parallel int lists, places, and rejected lines
+    private static class Chunk {
+        final Path file;
+        final long start;
+        final long end;
+        final IntList sources = new IntList();
+        final IntList destinations = new IntList();
+        final IntList weights = new IntList();
+        final List<String[]> places = new ArrayList<>();
+        final IntList errorLines = new IntList();     // Line numbers relative to the chunk, first line is 0
+        final List<String> errors = new ArrayList<>();
+        long lines;
+        long rejected;
+
+        Chunk(Path file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+
+        void reject(String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errorLines.add((int) Math.min(lines, Integer.MAX_VALUE));
+                errors.add(reason);
+            }
+        }
+    }
+
+    // Method to parse a whole file in parallel chunks, in file order
+    private List<Chunk> parse(Path file, int fieldCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte delimiter = detectDelimiter(channel);
+            // Several chunks per core keep every core busy even when some chunks parse slower than others
+            long chunkBytes = size / (4L * Runtime.getRuntime().availableProcessors());
+            chunkBytes = Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, chunkBytes));
+            List<Chunk> chunks = new ArrayList<>();
+            for (long start = 0; start < size; start += chunkBytes) {
+                chunks.add(new Chunk(file, start, Math.min(size, start + chunkBytes)));
+            }
+            IOException[] failure = new IOException[1];
+            chunks.parallelStream().forEach(chunk -> {
+                try {
+                    parseChunk(channel, size, chunk, delimiter, fieldCount);
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            return chunks;
+        }
+    }
+
+    // Method to pick a tab delimiter if the start of the file uses tabs, otherwise a comma
+    private static byte detectDelimiter(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(channel.size(), 64 << 10));
+        channel.read(head, 0);
+        for (int i = 0; i < head.position(); i++) {
+            byte b = head.get(i);
+            if (b == '\t') return '\t';
+            if (b == ',') return ',';
+        }
+        return ',';
+    }
+
+    // Method to parse the lines that start inside one chunk; the last one may run into the overlap
+    private void parseChunk(FileChannel channel, long size, Chunk chunk, byte delimiter, int fieldCount) throws IOException {
+        long mappedEnd = Math.min(size, chunk.end + MAX_LINE_BYTES);
+        MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, mappedEnd - chunk.start);
+        int limit = (int) (chunk.end - chunk.start);
+        int position = 0;
+        if (chunk.start > 0) {
+            // The line running across the chunk start belongs to the previous chunk
+            ByteBuffer before = ByteBuffer.allocate(1);
+            channel.read(before, chunk.start - 1);
+            if (before.get(0) != '\n') {
+                while (position < in.limit() && in.get(position) != '\n') position++;
+                position++;
+            }
+        }
+        LineParser parser = new LineParser(in, delimiter, fieldCount);
+        long reported = 0;
+        long reportedLines = 0;
+        while (position < limit) {
+            int lineEnd = position;
+            while (lineEnd < in.limit() && in.get(lineEnd) != '\n') lineEnd++;
+            if (lineEnd == in.limit() && mappedEnd < size) {
+                throw new IOException(chunk.file + ": line longer than " + MAX_LINE_BYTES + " bytes near byte " + (chunk.start + position));
+            }
+            parser.parse(chunk, position, lineEnd);
+            chunk.lines++;
+            position = lineEnd + 1;
+            if (position - reported >= 1 << 20) {
+                progress(position - reported, chunk.lines - reportedLines);
+                reported = position;
+                reportedLines = chunk.lines;
+            }
+        }
+        progress(Math.max(0, limit - reported), chunk.lines - reportedLines);
+    }
+
+    // Method to count finished work and hand a snapshot to the listener at most once per interval
+    private void progress(long bytes, long lines) {
+        bytesDone.add(bytes);
+        linesDone.add(lines);
+        if (listener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = lastReport.get();
+        if (now - last >= PROGRESS_INTERVAL_NANOS && lastReport.compareAndSet(last, now)) {
+            listener.accept(new Progress(Math.min(bytesDone.sum(), bytesTotal), bytesTotal, linesDone.sum(), now - startNanos));
+        }
+    }
+
+    // Class splitting one line into fields and turning them into an edge or a place
+    private class LineParser {
+        private final ByteBuffer in;
+        private final byte delimiter;
+        private final int fieldCount;
+        private final String[] fields;
+        private byte[] scratch = new byte[256];
+
+        LineParser(ByteBuffer in, byte delimiter, int fieldCount) {
+            this.in = in;
+            this.delimiter = delimiter;
+            this.fieldCount = fieldCount;
+            this.fields = new String[fieldCount];
+        }
+
+        void parse(Chunk chunk, int start, int end) {
+            if (end > start && in.get(end - 1) == '\r') end--;
+            while (start < end && isSpace(in.get(start))) start++;
+            if (start == end || in.get(start) == '#') {
+                return;
+            }
+            int count = 0;
+            int position = start;
+            while (true) {
+                if (count == fieldCount) {
+                    chunk.reject("expected " + fieldCount + " fields");
+                    return;
+                }
+                int next = field(position, end, count);
+                if (next < 0) {
+                    chunk.reject("unterminated quote");
+                    return;
+                }
+                if (fields[count].isEmpty()) {
+                    chunk.reject("empty field " + (count + 1));
+                    return;
+                }
+                count++;
+                if (next >= end) break;
+                position = next + 1;    // Skip the delimiter
+            }
+            if (count != fieldCount) {
+                chunk.reject("expected " + fieldCount + " fields");
+                return;
+            }
+
+            if (fieldCount == 2) {
+                chunk.places.add(new String[]{fields[0], fields[1]});
+                return;
+            }
+            long weight = 0;
+            String text = fields[2];
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9' || weight > Integer.MAX_VALUE) {
+                    chunk.reject("bad weight '" + text + "'");
+                    return;
+                }
+                weight = weight * 10 + (c - '0');
+            }
+            if (weight > Integer.MAX_VALUE) {
+                chunk.reject("bad weight '" + text + "'");
+                return;
+            }
+            chunk.sources.add(intern(fields[0]));
+            chunk.destinations.add(intern(fields[1]));
+            chunk.weights.add((int) weight);
+        }
+
+        // Method to read the field starting at position into fields[index]; returns the index of the delimiter
+        // or end after it, or -1 for an unterminated quote
+        private int field(int position, int end, int index) {
+            while (position < end && isSpace(in.get(position))) position++;
+            int length = 0;
+            int next;
+            if (position < end && in.get(position) == '"') {
+                int i = position + 1;
+                while (true) {
+                    if (i >= end) return -1;
+                    byte b = in.get(i);
+                    if (b == '"') {
+                        if (i + 1 < end && in.get(i + 1) == '"') {
+                            i++;    // Doubled quote inside a quoted field
+                        } else {
+                            break;
+                        }
+                    }
+                    put(length++, in.get(i));
+                    i++;
+                }
+                next = i + 1;
+                while (next < end && in.get(next) != delimiter) next++;
+            } else {
+                next = position;
+                while (next < end && in.get(next) != delimiter) next++;
+                int last = next;
+                while (last > position && isSpace(in.get(last - 1))) last--;
+                for (int i = position; i < last; i++) {
+                    put(length++, in.get(i));
+                }
+            }
+            fields[index] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            return next;
+        }
+
+        private void put(int index, byte b) {
+            if (index == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[index] = b;
+        }
+
+        private boolean isSpace(byte b) {
+            return b != delimiter && (b == ' ' || b == '\t');
+        }
+    }
+
+    // Method to get the id of a name, assigning the next free one the first time it is seen
+    private int intern(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : ids.computeIfAbsent(name, key -> nextId.getAndIncrement());
+    }
+
+    // Method to number the nodes in name order, rewriting the parsed edges to the new ids; returns the names by id
+    private String[] renumber(List<Chunk> edgeChunks) {
+        String[] names = new String[nextId.get()];
+        ids.forEach((name, id) -> names[id] = name);
+        Arrays.parallelSort(names);
+        int[] renumbered = new int[names.length];    // Interned id -> id in name order
+        for (int node = 0; node < names.length; node++) {
+            renumbered[ids.get(names[node])] = node;
+        }
+        edgeChunks.parallelStream().forEach(chunk -> {
+            for (int i = 0; i < chunk.sources.size; i++) {
+                chunk.sources.values[i] = renumbered[chunk.sources.values[i]];
+                chunk.destinations.values[i] = renumbered[chunk.destinations.values[i]];
+            }
+        });
+        return names;
+    }
+
+    // Method to lay the parsed edges out as CSR arrays and attach the places
+    private static CsrGraph build(String[] names, List<Chunk> edgeChunks, List<Chunk> placeChunks, long[] duplicates) throws IOException {
+        int nodeCount = names.length;
+        long[] counts = new long[nodeCount + 1];
+        for (Chunk chunk : edgeChunks) {
+            for (int i = 0; i < chunk.sources.size; i++) {
+                counts[chunk.sources.get(i) + 1]++;
+                counts[chunk.destinations.get(i) + 1]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            counts[node + 1] += counts[node];
+        }
+        if (counts[nodeCount] > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too many edges for one graph: " + counts[nodeCount] / 2);
+        }
+
+        // Every slot holds target << 32 | weight, so sorting a node's slots groups repeated edges together
+        int[] offsets = new int[nodeCount + 1];
+        for (int node = 0; node <= nodeCount; node++) {
+            offsets[node] = (int) counts[node];
+        }
+        long[] slots = new long[offsets[nodeCount]];
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        for (Chunk chunk : edgeChunks) {
+            for (int i = 0; i < chunk.sources.size; i++) {
+                int source = chunk.sources.get(i);
+                int destination = chunk.destinations.get(i);
+                int weight = chunk.weights.get(i);
+                slots[cursor[source]++] = (long) destination << 32 | weight;
+                slots[cursor[destination]++] = (long) source << 32 | weight;
+            }
+        }
+        int[] degrees = new int[nodeCount];
+        int[] repeats = new int[nodeCount];    // Repeated lines per node, counted at the lower end of each pair
+        IntStream.range(0, nodeCount).parallel().forEach(node -> {
+            int from = offsets[node];
+            int to = offsets[node + 1];
+            Arrays.sort(slots, from, to);
+            int kept = from;
+            for (int slot = from; slot < to; ) {
+                long edge = slots[slot];
+                int run = slot;
+                while (run < to && slots[run] == edge) run++;
+                int target = (int) (edge >>> 32);
+                int copies = target == node ? 2 : 1;    // A self-loop line fills two slots of its node
+                for (int copy = 0; copy < copies; copy++) {
+                    slots[kept++] = edge;
+                }
+                if (target >= node) {
+                    repeats[node] += (run - slot) / copies - 1;
+                }
+                slot = run;
+            }
+            degrees[node] = kept - from;
+        });
+
+        int[] compactOffsets = new int[nodeCount + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            compactOffsets[node + 1] = compactOffsets[node] + degrees[node];
+        }
+        int[] targets = new int[compactOffsets[nodeCount]];
+        int[] weights = new int[compactOffsets[nodeCount]];
+        IntStream.range(0, nodeCount).parallel().forEach(node -> {
+            for (int i = 0; i < degrees[node]; i++) {
+                long slot = slots[offsets[node] + i];
+                targets[compactOffsets[node] + i] = (int) (slot >>> 32);
+                weights[compactOffsets[node] + i] = (int) slot;
+            }
+        });
+        for (int repeat : repeats) {
+            duplicates[0] += repeat;
+        }
+
+        Map<String, Integer> ids = new HashMap<>(nodeCount * 2);
+        for (int node = 0; node < nodeCount; node++) {
+            ids.put(names[node], node);
+        }
+        Map<String, List<String>> places = new HashMap<>();
+        for (Chunk chunk : placeChunks) {
+            for (String[] place : chunk.places) {
+                places.computeIfAbsent(place[0], city -> new ArrayList<>()).add(place[1]);
+            }
+        }
+        places.replaceAll((city, list) -> List.copyOf(list));
+        return new CsrGraph(names, ids, compactOffsets, targets, weights, Collections.unmodifiableMap(places), 0);
+    }
+
+    // Class representing a growable list of primitive ints
+    private static class IntList {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+    }
+}
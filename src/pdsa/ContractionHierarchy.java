@@ -0,0 +1,417 @@
+package pdsa;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Class representing a contraction hierarchy built offline from a static graph.
+// Nodes are contracted in rounds of independent sets; each round's witness searches run in
+// parallel, and shortcuts remember the node they bypass so paths can be unpacked. Queries run
+// a bidirectional search that only climbs to higher-ranked nodes, and are safe to call from
+// many threads because the hierarchy is immutable and search state is kept per thread.
+class ContractionHierarchy {
+    private static final int UNREACHABLE = ShortestPathEngine.UNREACHABLE;
+    private static final int MAX_WITNESS_SETTLED = 500;    // Witness searches give up (and keep the shortcut) after this many nodes
+    private static final int MAX_ESTIMATE_SETTLED = 50;    // Cheaper limit used when only estimating a node's priority
+
+    private static final ThreadLocal<Witness> WITNESS = ThreadLocal.withInitial(Witness::new);
+    private static final ThreadLocal<ShortestPathEngine.Scratch[]> QUERY = ThreadLocal.withInitial(
+            () -> new ShortestPathEngine.Scratch[]{new ShortestPathEngine.Scratch(), new ShortestPathEngine.Scratch()});
+
+    private final CsrGraph graph;
+    private final int[] rank;        // Contraction order of every node
+    private final int[] offsets;     // Upward edges of node v are in [offsets[v], offsets[v + 1])
+    private final int[] targets;     // Higher-ranked end of each upward edge
+    private final int[] weights;
+    private final int[] middles;     // Bypassed node of a shortcut, or -1 for an original edge
+
+    private ContractionHierarchy(CsrGraph graph, int[] rank, int[] offsets, int[] targets, int[] weights, int[] middles) {
+        this.graph = graph;
+        this.rank = rank;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.middles = middles;
+    }
+
+    // Method to build a contraction hierarchy for the current state of a graph
+    static ContractionHierarchy build(Graph graph) {
+        return build(graph.freeze());
+    }
+
+    // Method to build a contraction hierarchy for a frozen graph
+    static ContractionHierarchy build(CsrGraph graph) {
+        return new Builder(graph).contract();
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    // Method to check whether the hierarchy still matches the graph; any weight or structural change invalidates it
+    boolean isCurrent(Graph source) {
+        return source.version() == graph.version();
+    }
+
+    int shortcutCount() {
+        int count = 0;
+        for (int middle : middles) {
+            if (middle >= 0) count++;
+        }
+        return count;
+    }
+
+    // Method to find the shortest path from start node to end node
+    public Graph.PathWithDistance shortestPath(String start, String end) {
+        int source = graph.id(start);
+        int target = graph.id(end);
+        if (source < 0 || target < 0) {
+            return new Graph.PathWithDistance(Collections.emptyList(), 0);
+        }
+        ShortestPathEngine.Scratch[] scratch = QUERY.get();
+        ShortestPathEngine.Scratch forward = scratch[0];
+        ShortestPathEngine.Scratch backward = scratch[1];
+        forward.reset(graph.nodeCount());
+        backward.reset(graph.nodeCount());
+        forward.set(source, 0, -1);
+        backward.set(target, 0, -1);
+        forward.heap.push(LongMinHeap.pack(0, source));
+        backward.heap.push(LongMinHeap.pack(0, target));
+
+        long best = UNREACHABLE;
+        int meeting = -1;
+        while (true) {
+            long forwardTop = forward.heap.isEmpty() ? Long.MAX_VALUE : LongMinHeap.distance(forward.heap.peek());
+            long backwardTop = backward.heap.isEmpty() ? Long.MAX_VALUE : LongMinHeap.distance(backward.heap.peek());
+            if (Math.min(forwardTop, backwardTop) >= best) {
+                break;    // Neither side can improve on the best meeting point any more
+            }
+            ShortestPathEngine.Scratch side = forwardTop <= backwardTop ? forward : backward;
+            ShortestPathEngine.Scratch other = side == forward ? backward : forward;
+
+            long key = side.heap.pop();
+            int current = LongMinHeap.node(key);
+            int distance = LongMinHeap.distance(key);
+            if (distance > side.distance(current)) {
+                continue;
+            }
+            int otherDistance = other.distance(current);
+            if (otherDistance != UNREACHABLE && (long) distance + otherDistance < best) {
+                best = (long) distance + otherDistance;
+                meeting = current;
+            }
+            for (int edge = offsets[current]; edge < offsets[current + 1]; edge++) {
+                int neighbor = targets[edge];
+                long newDist = (long) distance + weights[edge];
+                if (newDist < side.distance(neighbor)) {
+                    side.set(neighbor, (int) newDist, current);
+                    side.heap.push(LongMinHeap.pack((int) newDist, neighbor));
+                }
+            }
+        }
+        if (meeting < 0) {
+            return new Graph.PathWithDistance(Collections.emptyList(), 0); // Return empty path with 0 distance if no path is found
+        }
+
+        // Hierarchy path: start .. meeting from the forward tree, then meeting .. end from the backward tree
+        List<Integer> upward = new ArrayList<>();
+        for (int node = meeting; node != -1; node = forward.previousNodes[node]) {
+            upward.add(node);
+        }
+        Collections.reverse(upward);
+        for (int node = backward.previousNodes[meeting]; node != -1; node = backward.previousNodes[node]) {
+            upward.add(node);
+        }
+
+        List<String> path = new ArrayList<>();
+        path.add(graph.name(source));
+        for (int i = 0; i + 1 < upward.size(); i++) {
+            unpack(upward.get(i), upward.get(i + 1), path);
+        }
+        return new Graph.PathWithDistance(path, (int) best);
+    }
+
+    // Method to append the original nodes after 'from' on the hierarchy edge from -> to
+    private void unpack(int from, int to, List<String> path) {
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[]{from, to});
+        while (!stack.isEmpty()) {
+            int[] edge = stack.pop();
+            int middle = middles[upwardEdge(edge[0], edge[1])];
+            if (middle < 0) {
+                path.add(graph.name(edge[1]));
+            } else {
+                stack.push(new int[]{middle, edge[1]});
+                stack.push(new int[]{edge[0], middle});
+            }
+        }
+    }
+
+    // Method to find the upward edge slot between two adjacent hierarchy nodes
+    private int upwardEdge(int a, int b) {
+        int lower = rank[a] < rank[b] ? a : b;
+        int higher = lower == a ? b : a;
+        for (int edge = offsets[lower]; edge < offsets[lower + 1]; edge++) {
+            if (targets[edge] == higher) {
+                return edge;
+            }
+        }
+        throw new IllegalStateException("Missing hierarchy edge " + graph.name(a) + " - " + graph.name(b));
+    }
+
+    // Class holding per-thread witness search state; targets of the running search carry the current mark
+    private static class Witness {
+        final ShortestPathEngine.Scratch scratch = new ShortestPathEngine.Scratch();
+        int[] marks = new int[0];
+        int mark;
+    }
+
+    // Class holding the mutable remaining graph while nodes are contracted
+    private static class Builder {
+        final CsrGraph graph;
+        final int nodeCount;
+        final int[][] neighbors;
+        final int[][] neighborWeights;
+        final int[][] neighborMiddles;
+        final int[] degree;
+        final int[] priority;
+        final int[] level;
+        final int[] deletedNeighbors;
+        final boolean[] contracted;
+        final boolean[] inRound;
+        final int[] rank;
+        final int[][] upTargets;
+        final int[][] upWeights;
+        final int[][] upMiddles;
+
+        Builder(CsrGraph graph) {
+            this.graph = graph;
+            this.nodeCount = graph.nodeCount();
+            this.neighbors = new int[nodeCount][];
+            this.neighborWeights = new int[nodeCount][];
+            this.neighborMiddles = new int[nodeCount][];
+            this.degree = new int[nodeCount];
+            this.priority = new int[nodeCount];
+            this.level = new int[nodeCount];
+            this.deletedNeighbors = new int[nodeCount];
+            this.contracted = new boolean[nodeCount];
+            this.inRound = new boolean[nodeCount];
+            this.rank = new int[nodeCount];
+            this.upTargets = new int[nodeCount][];
+            this.upWeights = new int[nodeCount][];
+            this.upMiddles = new int[nodeCount][];
+
+            for (int v = 0; v < nodeCount; v++) {
+                int size = graph.edgeEnd(v) - graph.edgeStart(v);
+                neighbors[v] = new int[Math.max(size, 2)];
+                neighborWeights[v] = new int[Math.max(size, 2)];
+                neighborMiddles[v] = new int[Math.max(size, 2)];
+                for (int edge = graph.edgeStart(v); edge < graph.edgeEnd(v); edge++) {
+                    if (graph.target(edge) != v) {
+                        connect(v, graph.target(edge), graph.weight(edge), -1);
+                    }
+                }
+            }
+        }
+
+        // Method to contract every node and flatten the upward edges into CSR arrays
+        ContractionHierarchy contract() {
+            int[] remaining = IntStream.range(0, nodeCount).toArray();
+            IntStream.of(remaining).parallel().forEach(v -> priority[v] = computePriority(v));
+
+            int nextRank = 0;
+            boolean[] touched = new boolean[nodeCount];
+            while (remaining.length > 0) {
+                // Independent set: nodes whose priority is a strict local minimum among remaining neighbours
+                int[] round = IntStream.of(remaining).parallel().filter(this::isLocalMinimum).toArray();
+                for (int v : round) {
+                    inRound[v] = true;
+                }
+                int[][] shortcuts = new int[round.length][];
+                IntStream.range(0, round.length).parallel().forEach(i -> shortcuts[i] = findShortcuts(round[i]));
+
+                List<Integer> changed = new ArrayList<>();
+                for (int i = 0; i < round.length; i++) {
+                    int v = round[i];
+                    rank[v] = nextRank++;
+                    upTargets[v] = Arrays.copyOf(neighbors[v], degree[v]);
+                    upWeights[v] = Arrays.copyOf(neighborWeights[v], degree[v]);
+                    upMiddles[v] = Arrays.copyOf(neighborMiddles[v], degree[v]);
+                    int[] found = shortcuts[i];
+                    for (int k = 0; k < found.length; k += 3) {
+                        connect(found[k], found[k + 1], found[k + 2], v);
+                        connect(found[k + 1], found[k], found[k + 2], v);
+                    }
+                    for (int u : upTargets[v]) {
+                        disconnect(u, v);
+                        deletedNeighbors[u]++;
+                        level[u] = Math.max(level[u], level[v] + 1);
+                        if (!touched[u]) {
+                            touched[u] = true;
+                            changed.add(u);
+                        }
+                    }
+                    contracted[v] = true;
+                    inRound[v] = false;
+                    neighbors[v] = neighborWeights[v] = neighborMiddles[v] = null;
+                }
+
+                changed.parallelStream().filter(u -> !contracted[u]).forEach(u -> priority[u] = computePriority(u));
+                for (int u : changed) {
+                    touched[u] = false;
+                }
+                remaining = IntStream.of(remaining).filter(v -> !contracted[v]).toArray();
+            }
+
+            int[] offsets = new int[nodeCount + 1];
+            for (int v = 0; v < nodeCount; v++) {
+                offsets[v + 1] = offsets[v] + upTargets[v].length;
+            }
+            int[] targets = new int[offsets[nodeCount]];
+            int[] weights = new int[offsets[nodeCount]];
+            int[] middles = new int[offsets[nodeCount]];
+            for (int v = 0; v < nodeCount; v++) {
+                System.arraycopy(upTargets[v], 0, targets, offsets[v], upTargets[v].length);
+                System.arraycopy(upWeights[v], 0, weights, offsets[v], upWeights[v].length);
+                System.arraycopy(upMiddles[v], 0, middles, offsets[v], upMiddles[v].length);
+            }
+            return new ContractionHierarchy(graph, rank, offsets, targets, weights, middles);
+        }
+
+        private boolean isLocalMinimum(int v) {
+            for (int k = 0; k < degree[v]; k++) {
+                int u = neighbors[v][k];
+                if (priority[u] < priority[v] || (priority[u] == priority[v] && u < v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Method to rate a node: fewer added shortcuts, fewer contracted neighbours and a lower level go first
+        private int computePriority(int v) {
+            int edgeDifference = countShortcuts(v) - degree[v];
+            return 2 * edgeDifference + deletedNeighbors[v] + level[v];
+        }
+
+        private int countShortcuts(int v) {
+            return witnessSearches(v, null, MAX_ESTIMATE_SETTLED);
+        }
+
+        // Method to list the shortcuts needed to contract v as (from, to, weight) triples
+        private int[] findShortcuts(int v) {
+            List<int[]> found = new ArrayList<>();
+            witnessSearches(v, found, MAX_WITNESS_SETTLED);
+            int[] triples = new int[found.size() * 3];
+            for (int i = 0; i < found.size(); i++) {
+                System.arraycopy(found.get(i), 0, triples, i * 3, 3);
+            }
+            return triples;
+        }
+
+        // Method to run one witness search per neighbour of v; returns the number of shortcuts needed
+        private int witnessSearches(int v, List<int[]> found, int maxSettled) {
+            Witness witness = WITNESS.get();
+            if (witness.marks.length < nodeCount) {
+                witness.marks = new int[nodeCount];
+                witness.mark = 0;
+            }
+            ShortestPathEngine.Scratch scratch = witness.scratch;
+            int count = 0;
+            for (int i = 0; i < degree[v]; i++) {
+                int from = neighbors[v][i];
+                int fromWeight = neighborWeights[v][i];
+                int maxWeight = -1;
+                for (int j = i + 1; j < degree[v]; j++) {
+                    maxWeight = Math.max(maxWeight, neighborWeights[v][j]);
+                }
+                if (maxWeight < 0) {
+                    continue;
+                }
+                int mark = ++witness.mark;
+                for (int j = i + 1; j < degree[v]; j++) {
+                    witness.marks[neighbors[v][j]] = mark;
+                }
+                witnessSearch(scratch, from, v, (long) fromWeight + maxWeight, maxSettled, witness.marks, mark, degree[v] - i - 1);
+                for (int j = i + 1; j < degree[v]; j++) {
+                    long via = (long) fromWeight + neighborWeights[v][j];
+                    if (scratch.distance(neighbors[v][j]) > via) {
+                        count++;
+                        if (found != null) {
+                            found.add(new int[]{from, neighbors[v][j], (int) Math.min(via, UNREACHABLE - 1)});
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        // Method to run a bounded Dijkstra from 'from' in the remaining graph without v and this round's nodes,
+        // stopping early once every marked target is settled
+        private void witnessSearch(ShortestPathEngine.Scratch scratch, int from, int v, long limit, int maxSettled, int[] marks, int mark, int pendingTargets) {
+            scratch.reset(nodeCount);
+            scratch.set(from, 0, -1);
+            scratch.heap.push(LongMinHeap.pack(0, from));
+            int settled = 0;
+            while (!scratch.heap.isEmpty()) {
+                long key = scratch.heap.pop();
+                int current = LongMinHeap.node(key);
+                int distance = LongMinHeap.distance(key);
+                if (distance > scratch.distance(current)) {
+                    continue;
+                }
+                if (distance > limit || ++settled > maxSettled) {
+                    return;
+                }
+                if (marks[current] == mark && --pendingTargets == 0) {
+                    return;
+                }
+                for (int k = 0; k < degree[current]; k++) {
+                    int neighbor = neighbors[current][k];
+                    if (neighbor == v || inRound[neighbor]) continue;
+
+                    long newDist = (long) distance + neighborWeights[current][k];
+                    if (newDist <= limit && newDist < scratch.distance(neighbor)) {
+                        scratch.set(neighbor, (int) newDist, current);
+                        scratch.heap.push(LongMinHeap.pack((int) newDist, neighbor));
+                    }
+                }
+            }
+        }
+
+        // Method to add the edge a -> b, or lower its weight if a shorter one is found
+        private void connect(int a, int b, int weight, int middle) {
+            for (int k = 0; k < degree[a]; k++) {
+                if (neighbors[a][k] == b) {
+                    if (weight < neighborWeights[a][k]) {
+                        neighborWeights[a][k] = weight;
+                        neighborMiddles[a][k] = middle;
+                    }
+                    return;
+                }
+            }
+            if (degree[a] == neighbors[a].length) {
+                int size = degree[a] * 2;
+                neighbors[a] = Arrays.copyOf(neighbors[a], size);
+                neighborWeights[a] = Arrays.copyOf(neighborWeights[a], size);
+                neighborMiddles[a] = Arrays.copyOf(neighborMiddles[a], size);
+            }
+            neighbors[a][degree[a]] = b;
+            neighborWeights[a][degree[a]] = weight;
+            neighborMiddles[a][degree[a]] = middle;
+            degree[a]++;
+        }
+
+        // Method to remove the edge a -> b by moving the last edge of a into its place
+        private void disconnect(int a, int b) {
+            for (int k = 0; k < degree[a]; k++) {
+                if (neighbors[a][k] == b) {
+                    int last = --degree[a];
+                    neighbors[a][k] = neighbors[a][last];
+                    neighborWeights[a][k] = neighborWeights[a][last];
+                    neighborMiddles[a][k] = neighborMiddles[a][last];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package pdsa;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Class representing a frozen, immutable compressed-sparse-row (CSR) view of a Graph.
+// City names are interned to int ids once; the edges of node v are stored in the
+// slots [offsets[v], offsets[v + 1]) of the primitive targets and weights buffers. The buffers
+// wrap int arrays when frozen in memory, or point straight into a memory-mapped CsrGraphFile;
+// the accessors index the arrays directly whenever there are some.
+class CsrGraph {
+    private final String[] names;              // Node id -> city name
+    private final Map<String, Integer> ids;    // City name -> node id
+    private final IntBuffer offsets;           // Per-node start of its edge slots (length nodeCount + 1)
+    private final IntBuffer targets;           // Destination node id of each edge slot
+    private final IntBuffer weights;           // Weight of each edge slot
+    private final int[] offsetArray;           // The arrays behind the buffers above, null for mapped ones
+    private final int[] targetArray;
+    private final int[] weightArray;
+    final Map<String, List<String>> placesOfInterest;
+    private final long version;                // Graph version this copy was frozen from
+    private final ShortestPathEngine engine;
+    private final MinStopsSearch minStops;
+    private final WaypointRouter waypoints;
+    private final ParetoSearch pareto;
+    private final TimeProfiles timeProfiles;    // Travel-time profiles of the edge slots, null when there are none
+    private final TimeDependentSearch timeDependent;
+
+    // Constructor to wrap already built CSR arrays
+    CsrGraph(String[] names, Map<String, Integer> ids, int[] offsets, int[] targets, int[] weights, Map<String, List<String>> placesOfInterest, long version) {
+        this(names, ids, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(weights), placesOfInterest, version);
+    }
+
+    // Constructor to wrap CSR buffers, e.g. views of a memory-mapped file; they are only ever read
+    CsrGraph(String[] names, Map<String, Integer> ids, IntBuffer offsets, IntBuffer targets, IntBuffer weights, Map<String, List<String>> placesOfInterest, long version) {
+        this(names, ids, offsets, targets, weights, placesOfInterest, version, null);
+    }
+
+    private CsrGraph(String[] names, Map<String, Integer> ids, IntBuffer offsets, IntBuffer targets, IntBuffer weights, Map<String, List<String>> placesOfInterest, long version, TimeProfiles timeProfiles) {
+        this.names = names;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.offsetArray = array(offsets);
+        this.targetArray = array(targets);
+        this.weightArray = array(weights);
+        this.placesOfInterest = placesOfInterest;
+        this.version = version;
+        this.engine = new ShortestPathEngine(this);
+        this.minStops = new MinStopsSearch(this);
+        this.waypoints = new WaypointRouter(this);
+        this.pareto = new ParetoSearch(this, engine);
+        this.timeProfiles = timeProfiles;
+        this.timeDependent = new TimeDependentSearch(this, timeProfiles);
+    }
+
+    // Method to get the int array a buffer wraps whole, or null if it has none, e.g. a mapped one
+    private static int[] array(IntBuffer buffer) {
+        if (!buffer.hasArray() || buffer.arrayOffset() != 0 || buffer.limit() != buffer.array().length) {
+            return null;
+        }
+        return buffer.array();
+    }
+
+    // Method to freeze the adjacency list of a graph into CSR arrays, keeping the edge order of every node.
+    // The caller must hold the graph's write lock, or discard the result unless no writer ran meanwhile.
+    static CsrGraph of(Graph graph) {
+        int nodeCount = graph.adjacencyList.size();
+        String[] names = new String[nodeCount];
+        Map<String, Integer> ids = new HashMap<>(nodeCount * 2);
+        int[] offsets = new int[nodeCount + 1];
+
+        int id = 0;
+        for (Map.Entry<String, List<Graph.Edge>> entry : graph.adjacencyList.entrySet()) {
+            names[id] = entry.getKey();
+            ids.put(entry.getKey(), id);
+            offsets[id + 1] = offsets[id] + entry.getValue().size();
+            id++;
+        }
+
+        int[] targets = new int[offsets[nodeCount]];
+        int[] weights = new int[offsets[nodeCount]];
+        int[] profiles = graph.timeProfiles.profileCount() == 0 ? null : new int[offsets[nodeCount]];
+        for (int v = 0; v < nodeCount; v++) {
+            int slot = offsets[v];
+            for (Graph.Edge edge : graph.adjacencyList.get(names[v])) {
+                targets[slot] = ids.get(edge.destination);
+                weights[slot] = edge.weight;
+                if (profiles != null) {
+                    profiles[slot] = edge.profile;
+                }
+                slot++;
+            }
+        }
+
+        Map<String, List<String>> places = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : graph.placesOfInterest.entrySet()) {
+            places.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        return new CsrGraph(names, ids, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(weights), Collections.unmodifiableMap(places),
+                graph.version(), profiles == null ? null : graph.timeProfiles.build(profiles));
+    }
+
+    // Method to copy the weights so they can be patched for a new version
+    int[] copyWeights() {
+        int[] copy = new int[edgeCount()];
+        weights.get(0, copy);
+        return copy;
+    }
+
+    // Method to copy the travel-time profile id of every edge slot, -1 everywhere when there are none
+    int[] copyProfiles() {
+        if (timeProfiles != null) {
+            return timeProfiles.copyEdgeProfiles();
+        }
+        int[] none = new int[edgeCount()];
+        Arrays.fill(none, -1);
+        return none;
+    }
+
+    // Method to set the value of every edge slot between two nodes, in both directions, e.g. in copied weights
+    void patchSlots(int[] patched, int a, int b, int value) {
+        for (int edge = edgeStart(a); edge < edgeEnd(a); edge++) {
+            if (target(edge) == b) patched[edge] = value;
+        }
+        for (int edge = edgeStart(b); edge < edgeEnd(b); edge++) {
+            if (target(edge) == a) patched[edge] = value;
+        }
+    }
+
+    // Method to create a copy with new weights (null keeps these) and travel-time profiles that shares the names,
+    // offsets and targets of this one
+    CsrGraph withWeights(int[] weights, TimeProfiles timeProfiles, long version) {
+        return new CsrGraph(names, ids, offsets, targets, weights == null ? this.weights : IntBuffer.wrap(weights), placesOfInterest, version, timeProfiles);
+    }
+
+    // Method to check whether another copy shares the nodes and edge slots of this one, so only weights can differ
+    boolean sameEdges(CsrGraph other) {
+        return offsets == other.offsets && targets == other.targets;
+    }
+
+    long version() {
+        return version;
+    }
+
+    // Method to get the travel-time profiles of the edge slots, null when there are none
+    TimeProfiles timeProfiles() {
+        return timeProfiles;
+    }
+
+    int nodeCount() {
+        return names.length;
+    }
+
+    int edgeCount() {
+        return targets.limit();
+    }
+
+    // Method to get the first edge slot of a node
+    int edgeStart(int node) {
+        return offsetArray != null ? offsetArray[node] : offsets.get(node);
+    }
+
+    // Method to get the slot after the last edge of a node
+    int edgeEnd(int node) {
+        return offsetArray != null ? offsetArray[node + 1] : offsets.get(node + 1);
+    }
+
+    int target(int edge) {
+        return targetArray != null ? targetArray[edge] : targets.get(edge);
+    }
+
+    int weight(int edge) {
+        return weightArray != null ? weightArray[edge] : weights.get(edge);
+    }
+
+    String name(int node) {
+        return names[node];
+    }
+
+    // Method to look up the id of a city, or -1 if it is not on the map
+    int id(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    // Method to look up the ids of several cities, -1 for those not on the map
+    int[] ids(List<String> names) {
+        int[] result = new int[names.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = id(names.get(i));
+        }
+        return result;
+    }
+
+    // Method to turn a path of node ids into a path of city names
+    List<String> names(int[] path, int length) {
+        List<String> result = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            result.add(names[path[i]]);
+        }
+        return result;
+    }
+
+    // Method to find all paths from start node to end node
+    public List<Graph.PathWithDistance> findAllPaths(String start, String end) {
+        return findPathsMaxDistance(start, end, Integer.MAX_VALUE);
+    }
+
+    // Method to find paths from start to end with a maximum distance
+    public List<Graph.PathWithDistance> findPathsMaxDistance(String start, String end, int maxDistance) {
+        List<Graph.PathWithDistance> paths = new ArrayList<>();
+        PathEnumerator.of(this, id(start), id(end), maxDistance, PathEnumerator.Control.unbounded()).forEachRemaining(paths::add);
+        return paths;
+    }
+
+    // Method to stream all paths from start node to end node lazily
+    public Stream<Graph.PathWithDistance> streamAllPaths(String start, String end, PathEnumerator.Control control, boolean parallel) {
+        return streamPathsMaxDistance(start, end, Integer.MAX_VALUE, control, parallel);
+    }
+
+    // Method to stream paths from start to end with a maximum distance lazily; closing the stream cancels the search
+    public Stream<Graph.PathWithDistance> streamPathsMaxDistance(String start, String end, int maxDistance, PathEnumerator.Control control, boolean parallel) {
+        return StreamSupport.stream(PathEnumerator.of(this, id(start), id(end), maxDistance, control), parallel).onClose(control::cancel);
+    }
+
+    // Method to find the k shortest loopless paths from start to end, shortest first
+    public List<Graph.PathWithDistance> kShortestPaths(String start, String end, int k) {
+        return new KShortestPaths(this).find(id(start), id(end), k);
+    }
+
+    // Method to find the path with the minimum number of stops
+    public Graph.PathWithStops findPathWithMinStops(String start, String end) {
+        return findPathWithMinStops(start, end, false);
+    }
+
+    // Method to find the path with the minimum number of stops, preferring the shorter one among equal stops
+    public Graph.PathWithStops findPathWithMinStops(String start, String end, boolean breakTiesByDistance) {
+        return minStops.findPathWithMinStops(id(start), id(end), breakTiesByDistance);
+    }
+
+    // Method to find the shortest path from start node to end node
+    public Graph.PathWithDistance shortestPath(String start, String end) {
+        return engine.shortestPath(id(start), id(end), null);
+    }
+
+    // Method to find a path avoiding specified nodes
+    public Graph.PathWithDistance pathAvoidingNodes(String start, String end, Set<String> nodesToAvoid) {
+        return engine.shortestPath(id(start), id(end), blocked(nodesToAvoid));
+    }
+
+    // Method to find every route from start to end that no other route beats on both distance and stops,
+    // avoiding the given nodes and no longer than maxDistance; shortest first, stops = path size - 1
+    public List<Graph.PathWithDistance> paretoRoutes(String start, String end, Set<String> nodesToAvoid, int maxDistance) {
+        return pareto.find(id(start), id(end), blocked(nodesToAvoid), maxDistance);
+    }
+
+    // Method to find the quickest path from start to end leaving at the given minute, following the edges'
+    // travel-time profiles; the distance of the result is the travel time in minutes
+    public Graph.PathWithDistance shortestPathDepartingAt(String start, String end, int departure) {
+        return timeDependent.fastestPath(id(start), id(end), departure);
+    }
+
+    // Method to find the departure minutes within [windowStart, windowEnd] with the least travel time from start to end
+    public List<Graph.Departure> bestDepartures(String start, String end, int windowStart, int windowEnd) {
+        return timeDependent.bestDepartures(id(start), id(end), windowStart, windowEnd);
+    }
+
+    // Method to mark the nodes to avoid; names not on the map are ignored
+    private boolean[] blocked(Set<String> nodesToAvoid) {
+        boolean[] blocked = new boolean[nodeCount()];
+        for (String node : nodesToAvoid) {
+            int id = id(node);
+            if (id >= 0) {
+                blocked[id] = true;
+            }
+        }
+        return blocked;
+    }
+
+    // Method to compute the shortest distance from every source to every target in one batch
+    public DistanceMatrix distanceMatrix(List<String> sources, List<String> targets) {
+        return DistanceMatrix.compute(this, ids(sources), ids(targets));
+    }
+
+    // Method to find the shortest path through interest points, visiting them in the given order
+    public Graph.PathWithDistance pathThroughInterestPoints(String start, List<String> interestPoints, String end) {
+        return waypoints.inOrder(id(start), ids(interestPoints), id(end));
+    }
+
+    // Method to find the shortest path through interest points, visiting them in any order
+    public Graph.PathWithDistance pathThroughInterestPointsAnyOrder(String start, List<String> interestPoints, String end) {
+        return waypoints.anyOrder(id(start), ids(interestPoints), id(end));
+    }
+}
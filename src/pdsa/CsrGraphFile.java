@@ -0,0 +1,247 @@
+package pdsa;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Class reading and writing a CsrGraph as one compact little-endian binary file.
+// Layout, with every section starting on a 4-byte boundary:
+//   header   magic, format, graph version (long), node count, edge count
+//   edges    offsets[nodeCount + 1], targets[edgeCount], weights[edgeCount]
+//   names    string table of the city names, indexed by node id
+//   places   string table of the cities with places, ranges[cityCount + 1], string table of the places
+// A string table is a count, byte offsets[count + 1] and the UTF-8 bytes of all strings.
+// Loading maps the file read-only and queries read the edge sections in place, so startup only
+// decodes the names and several JVMs on one host share the same pages.
+class CsrGraphFile {
+    private static final int MAGIC = 0x41534450;    // "PDSA"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 24;
+
+    // Method to write the current state of a graph to a file
+    static void write(Graph graph, Path file) throws IOException {
+        write(graph.freeze(), file);
+    }
+
+    // Method to write a frozen graph to a file, replacing it only once the new file is complete
+    static void write(CsrGraph graph, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            int nodeCount = graph.nodeCount();
+            int edgeCount = graph.edgeCount();
+            out.putInt(MAGIC);
+            out.putInt(FORMAT);
+            out.putLong(graph.version());
+            out.putInt(nodeCount);
+            out.putInt(edgeCount);
+
+            for (int node = 0; node < nodeCount; node++) {
+                out.putInt(graph.edgeStart(node));
+            }
+            out.putInt(edgeCount);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                out.putInt(graph.target(edge));
+            }
+            for (int edge = 0; edge < edgeCount; edge++) {
+                out.putInt(graph.weight(edge));
+            }
+
+            List<String> names = new ArrayList<>(nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                names.add(graph.name(node));
+            }
+            out.putStrings(names);
+
+            List<String> cities = new ArrayList<>(graph.placesOfInterest.keySet());
+            Collections.sort(cities);
+            List<String> places = new ArrayList<>();
+            int[] ranges = new int[cities.size() + 1];
+            for (int i = 0; i < cities.size(); i++) {
+                places.addAll(graph.placesOfInterest.get(cities.get(i)));
+                ranges[i + 1] = places.size();
+            }
+            out.putStrings(cities);
+            for (int range : ranges) {
+                out.putInt(range);
+            }
+            out.putStrings(places);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Method to map a graph file into memory; the returned graph reads its edges straight from the mapping
+    static CsrGraph load(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Graph file too large to map: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());    // Stays valid after the channel closes
+        }
+        ByteBuffer in = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+                throw new IOException("Not a graph file: " + file);
+            }
+            int format = in.getInt();
+            if (format != FORMAT) {
+                throw new IOException("Unsupported graph file format " + format + ": " + file);
+            }
+            long version = in.getLong();
+            int nodeCount = in.getInt();
+            int edgeCount = in.getInt();
+
+            IntBuffer offsets = ints(in, nodeCount + 1);
+            IntBuffer targets = ints(in, edgeCount);
+            IntBuffer weights = ints(in, edgeCount);
+            checkEdges(offsets, targets, weights, nodeCount, edgeCount, file);
+
+            String[] names = strings(in, file).toArray(new String[0]);
+            Map<String, Integer> ids = new HashMap<>(nodeCount * 2);
+            for (int node = 0; node < names.length; node++) {
+                ids.put(names[node], node);
+            }
+
+            List<String> cities = strings(in, file);
+            IntBuffer ranges = ints(in, cities.size() + 1);
+            List<String> places = strings(in, file);
+            Map<String, List<String>> placesOfInterest = new HashMap<>();
+            for (int i = 0; i < cities.size(); i++) {
+                placesOfInterest.put(cities.get(i), List.copyOf(places.subList(ranges.get(i), ranges.get(i + 1))));
+            }
+            if (names.length != nodeCount) {
+                throw new IOException("Corrupt graph file: " + file);
+            }
+            return new CsrGraph(names, ids, offsets, targets, weights, Collections.unmodifiableMap(placesOfInterest), version);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt graph file: " + file, e);
+        }
+    }
+
+    // Method to check that every node's edge slots lie in order within the edge sections and every edge
+    // leads to a node with a non-negative weight, so corruption fails here rather than inside a query
+    private static void checkEdges(IntBuffer offsets, IntBuffer targets, IntBuffer weights, int nodeCount, int edgeCount, Path file) throws IOException {
+        if (offsets.get(0) != 0 || offsets.get(nodeCount) != edgeCount) {
+            throw new IOException("Corrupt graph file: " + file);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            if (offsets.get(node) > offsets.get(node + 1)) {
+                throw new IOException("Corrupt graph file: " + file);
+            }
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int target = targets.get(edge);
+            if (target < 0 || target >= nodeCount || weights.get(edge) < 0) {
+                throw new IOException("Corrupt graph file: " + file);
+            }
+        }
+    }
+
+    // Method to take a view of the next count ints of the buffer and skip past them
+    private static IntBuffer ints(ByteBuffer in, int count) {
+        ByteBuffer slice = in.slice(in.position(), Math.multiplyExact(count, 4)).order(ByteOrder.LITTLE_ENDIAN);
+        in.position(in.position() + count * 4);
+        return slice.asIntBuffer();
+    }
+
+    // Method to decode the next string table, checking its offsets before allocating the bytes they promise
+    private static List<String> strings(ByteBuffer in, Path file) throws IOException {
+        int count = in.getInt();
+        if (count < 0) {
+            throw new IOException("Corrupt graph file: " + file);
+        }
+        IntBuffer offsets = ints(in, count + 1);
+        if (offsets.get(0) != 0 || offsets.get(count) > in.remaining()) {
+            throw new IOException("Corrupt graph file: " + file);
+        }
+        for (int i = 0; i < count; i++) {
+            if (offsets.get(i) > offsets.get(i + 1)) {
+                throw new IOException("Corrupt graph file: " + file);
+            }
+        }
+        int start = in.position();
+        List<String> strings = new ArrayList<>(count);
+        byte[] bytes = new byte[offsets.get(count)];
+        in.get(bytes);
+        for (int i = 0; i < count; i++) {
+            strings.add(new String(bytes, offsets.get(i), offsets.get(i + 1) - offsets.get(i), StandardCharsets.UTF_8));
+        }
+        in.position(align(start + bytes.length));
+        return strings;
+    }
+
+    private static int align(int position) {
+        return (position + 3) & ~3;
+    }
+
+    // Class buffering little-endian output to a channel
+    static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        // Method to write a string table, padded to the next 4-byte boundary
+        void putStrings(List<String> strings) throws IOException {
+            List<byte[]> encoded = new ArrayList<>(strings.size());
+            putInt(strings.size());
+            int offset = 0;
+            putInt(offset);
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                offset = Math.addExact(offset, bytes.length);
+                putInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                for (int from = 0; from < bytes.length; ) {
+                    ensure(1);
+                    int length = Math.min(buffer.remaining(), bytes.length - from);
+                    buffer.put(bytes, from, length);
+                    from += length;
+                }
+            }
+            while (((written + buffer.position()) & 3) != 0) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
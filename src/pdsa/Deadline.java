@@ -0,0 +1,53 @@
+package pdsa;
+
+// Class carrying the deadline of the query running on a thread, so a search nobody is waiting for anymore
+// gives up instead of holding its thread. RouteServer binds one per request, like QueryMetrics binds Stats;
+// parallel parts of a query bind the caller's deadline on their worker threads. Searches read it once and
+// check the clock every CHECK_INTERVAL steps, so a query without a deadline pays one ThreadLocal read.
+class Deadline {
+    static final int CHECK_INTERVAL = 1024;    // Steps between clock reads, a power of two
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long nanos;    // System.nanoTime() at which the query must stop
+
+    Deadline(long nanos) {
+        this.nanos = nanos;
+    }
+
+    // Class representing the failure of a query that ran past its deadline
+    static class Exceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Exceeded() {
+            super("Deadline exceeded", null, false, false);    // Thrown often under load, a stack trace would only cost
+        }
+    }
+
+    // Method to get the deadline of the query on the calling thread, or null if it has none
+    static Deadline current() {
+        return CURRENT.get();
+    }
+
+    // Method to make the calling thread's searches stop at deadline (may be null); returns the binding to restore afterwards
+    static Deadline bind(Deadline deadline) {
+        Deadline previous = CURRENT.get();
+        unbind(deadline);
+        return previous;
+    }
+
+    static void unbind(Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    // Method for search loops: every CHECK_INTERVAL steps, throw Exceeded if the deadline (may be null) has passed
+    static void check(Deadline deadline, long step) {
+        if (deadline != null && (step & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() - deadline.nanos > 0) {
+            throw new Exceeded();
+        }
+    }
+}
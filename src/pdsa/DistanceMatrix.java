@@ -0,0 +1,59 @@
+package pdsa;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Class representing shortest distances from a list of sources to a list of targets.
+// Values are stored row-major in one flat int array; ShortestPathEngine.UNREACHABLE marks
+// pairs without a path (or names that are not on the map). Each row is one single-source
+// search that stops as soon as every target is settled, and rows are computed in parallel.
+class DistanceMatrix {
+    final int rows;
+    final int columns;
+    final int[] values;
+
+    private DistanceMatrix(int rows, int columns, int[] values) {
+        this.rows = rows;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    int get(int row, int column) {
+        return values[row * columns + column];
+    }
+
+    // Method to copy the matrix into one array per source
+    int[][] toArray() {
+        int[][] result = new int[rows][];
+        for (int row = 0; row < rows; row++) {
+            result[row] = Arrays.copyOfRange(values, row * columns, (row + 1) * columns);
+        }
+        return result;
+    }
+
+    // Method to compute the matrix on the common fork-join pool
+    static DistanceMatrix compute(CsrGraph graph, int[] sources, int[] targets) {
+        checkSize(sources, targets);
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        int[] values = new int[sources.length * targets.length];
+        QueryMetrics.Stats stats = QueryMetrics.current();    // Rows on worker threads count for the calling query
+        Deadline deadline = Deadline.current();               // and stop at its deadline
+        IntStream.range(0, sources.length).parallel().forEach(row -> {
+            QueryMetrics.Stats bound = QueryMetrics.bind(stats);
+            Deadline previous = Deadline.bind(deadline);
+            try {
+                engine.distancesTo(sources[row], targets, values, row * targets.length);
+            } finally {
+                Deadline.unbind(previous);
+                QueryMetrics.unbind(bound);
+            }
+        });
+        return new DistanceMatrix(sources.length, targets.length, values);
+    }
+
+    private static void checkSize(int[] sources, int[] targets) {
+        if ((long) sources.length * targets.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Distance matrix too large: " + sources.length + " x " + targets.length);
+        }
+    }
+}
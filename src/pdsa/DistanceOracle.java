@@ -0,0 +1,284 @@
+package pdsa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Class answering distance queries between any two nodes of a small or medium CsrGraph from precomputed tables.
+// Two flat n * n int tables hold one row per target t: distances[t * n + u] is the shortest distance from u
+// to t, and nextHops[t * n + u] the node after u on a shortest path to t (-1 at t itself and where t cannot
+// be reached). Edges run both ways, so row t is exactly the shortest-path tree of a Dijkstra from t, and the
+// rows are built as independent searches in parallel; a path is read off one row, hop by hop.
+// The tables are never changed once built: a weight change produces a repaired copy, so an oracle can be
+// shared by any number of readers, and a written oracle file is mapped read-only like a CsrGraphFile.
+class DistanceOracle {
+    static final int MAX_NODES = 23_170;    // Largest n whose n * n table of ints still fits in one buffer
+    private static final int UNREACHABLE = ShortestPathEngine.UNREACHABLE;
+    private static final int MAGIC = 0x4F534450;    // "PDSO"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 24;
+
+    private final CsrGraph graph;
+    private final int n;
+    private final IntBuffer distances;    // Row t, column u: shortest distance between u and t
+    private final IntBuffer nextHops;     // Row t, column u: next node from u towards t
+
+    private DistanceOracle(CsrGraph graph, IntBuffer distances, IntBuffer nextHops) {
+        this.graph = graph;
+        this.n = graph.nodeCount();
+        this.distances = distances;
+        this.nextHops = nextHops;
+    }
+
+    // Method to build the oracle for the current state of a graph
+    static DistanceOracle of(Graph graph) {
+        return of(graph.snapshot());
+    }
+
+    // Method to build the oracle with one Dijkstra per node on the common fork-join pool
+    static DistanceOracle of(CsrGraph graph) {
+        int n = graph.nodeCount();
+        if (n > MAX_NODES) {
+            throw new IllegalArgumentException("Too many cities for a distance oracle: " + n + " > " + MAX_NODES);
+        }
+        int[] distances = new int[n * n];
+        int[] nextHops = new int[n * n];
+        ShortestPathEngine engine = new ShortestPathEngine(graph);
+        IntStream.range(0, n).parallel().forEach(target -> engine.shortestPathTree(target, distances, nextHops, target * n));
+        return new DistanceOracle(graph, IntBuffer.wrap(distances), IntBuffer.wrap(nextHops));
+    }
+
+    // Method to check whether the oracle was built for this frozen graph
+    boolean isCurrent(CsrGraph current) {
+        return current == graph;
+    }
+
+    CsrGraph graph() {
+        return graph;
+    }
+
+    // Method to get the shortest distance between two nodes, UNREACHABLE if there is no path
+    int distance(int a, int b) {
+        return a < 0 || b < 0 ? UNREACHABLE : distances.get(b * n + a);
+    }
+
+    // Method to get the shortest distance between two cities, UNREACHABLE if there is no path or a city is unknown
+    public int distance(String start, String end) {
+        return distance(graph.id(start), graph.id(end));
+    }
+
+    // Method to check in constant time whether any path from start to end is at most maxDistance long
+    public boolean hasPathWithin(String start, String end, int maxDistance) {
+        return distance(start, end) <= maxDistance;
+    }
+
+    // Method to find the shortest path from start node to end node by following next hops
+    public Graph.PathWithDistance shortestPath(String start, String end) {
+        int from = graph.id(start);
+        int to = graph.id(end);
+        int distance = distance(from, to);
+        if (distance == UNREACHABLE) {
+            return new Graph.PathWithDistance(new ArrayList<>(), 0);
+        }
+        List<String> path = new ArrayList<>();
+        int row = to * n;
+        for (int node = from; node != -1; node = nextHops.get(row + node)) {
+            path.add(graph.name(node));
+            if (path.size() > n) {
+                throw new IllegalStateException("Next hops from " + start + " to " + end + " form a cycle");
+            }
+        }
+        return new Graph.PathWithDistance(path, distance);
+    }
+
+    // Method to find paths from start to end with a maximum distance, pruning with the exact distances to end
+    public List<Graph.PathWithDistance> findPathsMaxDistance(String start, String end, int maxDistance) {
+        List<Graph.PathWithDistance> paths = new ArrayList<>();
+        paths(start, end, maxDistance, PathEnumerator.Control.unbounded()).forEachRemaining(paths::add);
+        return paths;
+    }
+
+    // Method to stream paths from start to end with a maximum distance lazily; closing the stream cancels the search
+    public Stream<Graph.PathWithDistance> streamPathsMaxDistance(String start, String end, int maxDistance, PathEnumerator.Control control, boolean parallel) {
+        return StreamSupport.stream(paths(start, end, maxDistance, control), parallel).onClose(control::cancel);
+    }
+
+    // Method to hand the row of end to the enumerator as its lower bounds, instead of running a Dijkstra per query
+    private Spliterator<Graph.PathWithDistance> paths(String start, String end, int maxDistance, PathEnumerator.Control control) {
+        int from = graph.id(start);
+        int to = graph.id(end);
+        if (distance(from, to) > maxDistance) {
+            return Spliterators.emptySpliterator();    // Also covers an unknown city or an unreachable end
+        }
+        int[] lowerBounds = new int[n];
+        distances.get(to * n, lowerBounds);
+        return PathEnumerator.of(graph, from, to, maxDistance, lowerBounds, control);
+    }
+
+    // Method to get an oracle for a newer version of the graph. When only the weight between one pair of cities
+    // changed (the edges are shared and every other weight is equal), the tables are copied and repaired;
+    // otherwise the oracle is rebuilt from scratch.
+    DistanceOracle updatedFor(CsrGraph updated) {
+        if (updated == graph) {
+            return this;
+        }
+        if (!updated.sameEdges(graph)) {
+            return of(updated);
+        }
+        int a = -1;
+        int b = -1;
+        for (int node = 0; node < n; node++) {
+            for (int edge = graph.edgeStart(node), last = graph.edgeEnd(node); edge < last; edge++) {
+                if (graph.weight(edge) == updated.weight(edge)) {
+                    continue;
+                }
+                int other = graph.target(edge);
+                if (a == -1) {
+                    a = Math.min(node, other);
+                    b = Math.max(node, other);
+                } else if (Math.min(node, other) != a || Math.max(node, other) != b) {
+                    return of(updated);    // More than one pair changed
+                }
+            }
+        }
+        if (a == -1) {
+            return new DistanceOracle(updated, distances, nextHops);
+        }
+        return repaired(updated, a, b);
+    }
+
+    // Method to repair a copy of the tables after the weight between a and b changed
+    private DistanceOracle repaired(CsrGraph updated, int a, int b) {
+        int oldWeight = minWeight(graph, a, b);
+        int newWeight = minWeight(updated, a, b);
+        int[] distances = new int[n * n];
+        int[] nextHops = new int[n * n];
+        this.distances.get(0, distances);
+        this.nextHops.get(0, nextHops);
+        if (newWeight < oldWeight) {
+            shorten(distances, nextHops, a, b, newWeight);
+        } else if (newWeight > oldWeight) {
+            lengthen(updated, distances, nextHops, a, b);
+        }
+        return new DistanceOracle(updated, IntBuffer.wrap(distances), IntBuffer.wrap(nextHops));
+    }
+
+    // Method to apply a shorter edge between a and b to every row. A shortest path that gains from the edge uses it
+    // once, in the direction whose far end is closer to the row's target, so with the old tables the new distance
+    // from u to t is min(old, d(u, a) + w + d(b, t)) and u's next hop is its old next hop towards a.
+    private void shorten(int[] distances, int[] nextHops, int a, int b, int weight) {
+        int[] distancesToA = Arrays.copyOfRange(distances, a * n, (a + 1) * n);
+        int[] distancesToB = Arrays.copyOfRange(distances, b * n, (b + 1) * n);
+        int[] hopsToA = Arrays.copyOfRange(nextHops, a * n, (a + 1) * n);
+        int[] hopsToB = Arrays.copyOfRange(nextHops, b * n, (b + 1) * n);
+        IntStream.range(0, n).parallel().forEach(target -> {
+            int row = target * n;
+            long fromA = distances[row + a];
+            long fromB = distances[row + b];
+            if (fromB != UNREACHABLE && fromA > fromB + weight) {
+                relax(distances, nextHops, row, distancesToA, hopsToA, a, b, (int) fromB + weight);
+            } else if (fromA != UNREACHABLE && fromB > fromA + weight) {
+                relax(distances, nextHops, row, distancesToB, hopsToB, b, a, (int) fromA + weight);
+            }
+        });
+    }
+
+    // Method to route every node of one row through the edge from near to far when that is shorter,
+    // where through is the distance from near to the row's target over the edge
+    private void relax(int[] distances, int[] nextHops, int row, int[] distancesToNear, int[] hopsToNear, int near, int far, int through) {
+        for (int node = 0; node < n; node++) {
+            if (distancesToNear[node] == UNREACHABLE) {
+                continue;
+            }
+            long candidate = (long) distancesToNear[node] + through;
+            if (candidate < distances[row + node]) {
+                distances[row + node] = (int) candidate;
+                nextHops[row + node] = node == near ? far : hopsToNear[node];
+            }
+        }
+    }
+
+    // Method to apply a longer edge between a and b. Rows whose shortest-path tree does not use the edge keep
+    // every distance, since their tree paths are still there and nothing got shorter; the others are searched again.
+    private void lengthen(CsrGraph updated, int[] distances, int[] nextHops, int a, int b) {
+        ShortestPathEngine engine = new ShortestPathEngine(updated);
+        IntStream.range(0, n).parallel()
+                .filter(target -> nextHops[target * n + a] == b || nextHops[target * n + b] == a)
+                .forEach(target -> engine.shortestPathTree(target, distances, nextHops, target * n));
+    }
+
+    // Method to get the lightest edge between two nodes
+    private static int minWeight(CsrGraph graph, int a, int b) {
+        int weight = Integer.MAX_VALUE;
+        for (int edge = graph.edgeStart(a), last = graph.edgeEnd(a); edge < last; edge++) {
+            if (graph.target(edge) == b) {
+                weight = Math.min(weight, graph.weight(edge));
+            }
+        }
+        return weight;
+    }
+
+    // Method to write the tables to a file, replacing it only once the new file is complete.
+    // Layout: magic, format, graph version (long), node count, edge count, then distances and nextHops row by row.
+    void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CsrGraphFile.Output out = new CsrGraphFile.Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT);
+            out.putLong(graph.version());
+            out.putInt(n);
+            out.putInt(graph.edgeCount());
+            for (int i = 0, count = n * n; i < count; i++) {
+                out.putInt(distances.get(i));
+            }
+            for (int i = 0, count = n * n; i < count; i++) {
+                out.putInt(nextHops.get(i));
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Method to map an oracle file written for this version of the graph; queries read the tables in place
+    static DistanceOracle load(Path file, CsrGraph graph) throws IOException {
+        int n = graph.nodeCount();
+        long tableBytes = 4L * n * n;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Not a distance oracle file: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a distance oracle file: " + file);
+            }
+            int format = header.getInt();
+            if (format != FORMAT) {
+                throw new IOException("Unsupported distance oracle file format " + format + ": " + file);
+            }
+            long version = header.getLong();
+            int nodeCount = header.getInt();
+            int edgeCount = header.getInt();
+            if (version != graph.version() || nodeCount != n || edgeCount != graph.edgeCount()) {
+                throw new IOException("Distance oracle file " + file + " was built for graph version " + version
+                        + " with " + nodeCount + " cities, not version " + graph.version() + " with " + n);
+            }
+            if (channel.size() != HEADER_BYTES + 2 * tableBytes) {
+                throw new IOException("Truncated or corrupt distance oracle file: " + file);
+            }
+            IntBuffer distances = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, tableBytes)    // Stay valid after the channel closes
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            IntBuffer nextHops = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + tableBytes, tableBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            return new DistanceOracle(graph, distances, nextHops);
+        }
+    }
+}
@@ -0,0 +1,745 @@
+package pdsa;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+class Graph {
+    static final long DEFAULT_CACHE_WEIGHT = 1 << 20;    // Path nodes the query cache may hold by default
+
+    final Map<String, List<Edge>> adjacencyList;    // Initialize adjacency list to store graph edges
+    final Map<String, List<String>> placesOfInterest;    // Intialize map to store places of interest for each node
+    final TimeProfiles.Builder timeProfiles = new TimeProfiles.Builder();    // Distinct travel-time profiles, by Edge.profile
+
+    // Writers change the maps above under writeLock; readers only ever query the published snapshot, which is
+    // current while its version equals the graph's. Weight-only changes patch a copy of the snapshot's weights;
+    // after structural changes the next reader freezes the maps again without taking writeLock. It copies them
+    // optimistically, keeps the copy only if the sequence lock shows no writer ran meanwhile, and installs it
+    // with a compare-and-set, so a slow freeze never holds up writers.
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final StampedLock sequence = new StampedLock();    // Write-locked by every outermost write, never read-locked
+    private final AtomicReference<CsrGraph> snapshot = new AtomicReference<>();
+    private volatile long version;
+    private int writeDepth;                  // Nesting of write operations and batches, guarded by writeLock
+    private long sequenceStamp;              // Stamp of the sequence write lock held by the outermost write
+    private boolean structuralChange;        // Nodes or edges were added or removed since the last publish
+    private final List<WeightChange> pendingWeights = new ArrayList<>();
+    private final List<ProfileChange> pendingProfiles = new ArrayList<>();
+    private int batchDepth;                  // Nesting of batches, guarded by writeLock
+    private final List<Runnable> undoLog = new ArrayList<>();    // Inverse of every change made inside a batch
+    private final QueryCache cache;          // Shortest-path style results by query, tagged with the snapshot version
+    private final ReentrantLock oracleLock = new ReentrantLock();
+    private final AtomicReference<DistanceOracle> oracle = new AtomicReference<>();    // All-pairs tables, once built or attached
+
+    // Constructor to initialize the adjacency list and map
+    public Graph() {
+        this(DEFAULT_CACHE_WEIGHT);
+    }
+
+    // Constructor taking the total weight of the query cache, roughly the number of path nodes it holds; 0 disables it
+    public Graph(long cacheWeight) {
+        this.adjacencyList = new HashMap<>();
+        this.placesOfInterest = new HashMap<>();
+        this.cache = new QueryCache(cacheWeight);
+    }
+
+    // Method to add an edge between two nodes with a specified weight
+    public void addEdge(String source, String destination, int weight) {
+        checkWeight(weight);
+        beginWrite();
+        try {
+            boolean newSource = !adjacencyList.containsKey(source);
+            boolean newDestination = !adjacencyList.containsKey(destination);
+            this.adjacencyList.putIfAbsent(source, new ArrayList<>());
+            this.adjacencyList.putIfAbsent(destination, new ArrayList<>());
+            this.adjacencyList.get(source).add(new Edge(destination, weight));
+            this.adjacencyList.get(destination).add(new Edge(source, weight));
+            onUndo(() -> {
+                List<Edge> back = adjacencyList.get(destination);
+                back.remove(back.size() - 1);
+                List<Edge> out = adjacencyList.get(source);
+                out.remove(out.size() - 1);
+                if (newDestination) {
+                    adjacencyList.remove(destination);
+                }
+                if (newSource) {
+                    adjacencyList.remove(source);
+                }
+            });
+            structuralChange = true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    // Method to reject negative weights; the searches pack distances into the high bits of non-negative heap keys
+    private static void checkWeight(int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Edge weights must not be negative: " + weight);
+        }
+    }
+
+    // Method to add a place of interest to a specific node
+    public void addPlaceOfInterest(String node, String place) {
+        beginWrite();
+        try {
+            boolean newNode = !placesOfInterest.containsKey(node);
+            this.placesOfInterest.putIfAbsent(node, new ArrayList<>());
+            this.placesOfInterest.get(node).add(place.trim());
+            onUndo(() -> {
+                List<String> places = placesOfInterest.get(node);
+                places.remove(places.size() - 1);
+                if (newNode) {
+                    placesOfInterest.remove(node);
+                }
+            });
+            structuralChange = true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    // Method to change the weight of every edge between two nodes
+    public void updateEdgeWeight(String source, String destination, int weight) {
+        checkWeight(weight);
+        beginWrite();
+        try {
+            List<Edge> edges = edgesBetween(source, destination);
+            int[] previous = new int[edges.size()];
+            for (int i = 0; i < previous.length; i++) {
+                previous[i] = edges.get(i).weight;
+                edges.get(i).weight = weight;
+            }
+            onUndo(() -> {
+                for (int i = 0; i < previous.length; i++) {
+                    edges.get(i).weight = previous[i];
+                }
+            });
+            pendingWeights.add(new WeightChange(source, destination, weight));
+        } finally {
+            endWrite();
+        }
+    }
+
+    // Method to give every edge between two nodes a travel-time profile: the travel minutes when leaving at each of
+    // the given minutes of the day, linear in between and repeating every day. Edges without a profile take their
+    // weight as travel time in time-dependent queries.
+    public void setTravelTimes(String source, String destination, int[] departureMinutes, int[] travelMinutes) {
+        TimeProfiles.validate(departureMinutes, travelMinutes);
+        beginWrite();
+        try {
+            List<Edge> edges = edgesBetween(source, destination);
+            int profile = timeProfiles.add(departureMinutes, travelMinutes);
+            int[] previous = new int[edges.size()];
+            for (int i = 0; i < previous.length; i++) {
+                previous[i] = edges.get(i).profile;
+                edges.get(i).profile = profile;
+            }
+            onUndo(() -> {
+                for (int i = 0; i < previous.length; i++) {
+                    edges.get(i).profile = previous[i];
+                }
+            });
+            pendingProfiles.add(new ProfileChange(source, destination, profile));
+        } finally {
+            endWrite();
+        }
+    }
+
+    // Method to collect the edges between two nodes in both directions; throws if there is none
+    private List<Edge> edgesBetween(String source, String destination) {
+        List<Edge> edges = new ArrayList<>();
+        for (Edge edge : adjacencyList.getOrDefault(source, Collections.emptyList())) {
+            if (edge.destination.equals(destination)) {
+                edges.add(edge);
+            }
+        }
+        if (edges.isEmpty()) {
+            throw new IllegalArgumentException("No edge between " + source + " and " + destination);
+        }
+        if (!source.equals(destination)) {
+            for (Edge edge : adjacencyList.get(destination)) {
+                if (edge.destination.equals(source)) {
+                    edges.add(edge);
+                }
+            }
+        }
+        return edges;
+    }
+
+    // Method to remove a node together with its edges and places of interest
+    public void removeNode(String node) {
+        beginWrite();
+        try {
+            List<Edge> edges = adjacencyList.remove(node);
+            if (edges == null) {
+                throw new IllegalArgumentException("Unknown city " + node);
+            }
+            List<List<Edge>> touched = new ArrayList<>();    // Neighbour lists and their contents before the removal
+            List<List<Edge>> before = new ArrayList<>();
+            for (Edge edge : edges) {
+                List<Edge> reverse = adjacencyList.get(edge.destination);
+                if (reverse != null) {
+                    if (batchDepth > 0) {
+                        touched.add(reverse);
+                        before.add(new ArrayList<>(reverse));
+                    }
+                    reverse.removeIf(back -> back.destination.equals(node));
+                }
+            }
+            List<String> places = placesOfInterest.remove(node);
+            onUndo(() -> {
+                for (int i = touched.size() - 1; i >= 0; i--) {
+                    touched.get(i).clear();
+                    touched.get(i).addAll(before.get(i));
+                }
+                adjacencyList.put(node, edges);
+                if (places != null) {
+                    placesOfInterest.put(node, places);
+                }
+            });
+            structuralChange = true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    // Method to apply several updates as one change; readers see either none or all of them. If an update throws,
+    // the changes the batch made so far are undone before the exception propagates, so nothing is published.
+    public void batch(Consumer<Graph> updates) {
+        beginWrite();
+        int mark = undoLog.size();
+        int weightMark = pendingWeights.size();
+        int profileMark = pendingProfiles.size();
+        boolean structural = structuralChange;
+        batchDepth++;
+        boolean completed = false;
+        try {
+            updates.accept(this);
+            completed = true;
+        } finally {
+            batchDepth--;
+            if (!completed) {
+                for (int i = undoLog.size() - 1; i >= mark; i--) {
+                    undoLog.get(i).run();
+                }
+                undoLog.subList(mark, undoLog.size()).clear();
+                pendingWeights.subList(weightMark, pendingWeights.size()).clear();
+                pendingProfiles.subList(profileMark, pendingProfiles.size()).clear();
+                structuralChange = structural;
+            }
+            if (batchDepth == 0) {
+                undoLog.clear();
+            }
+            endWrite();
+        }
+    }
+
+    // Method to remember how to revert a change while a batch that may still fail is running
+    private void onUndo(Runnable undo) {
+        if (batchDepth > 0) {
+            undoLog.add(undo);
+        }
+    }
+
+    // Method to get the number of changes made to the graph so far; derived indexes compare it to detect staleness
+    public long version() {
+        return version;
+    }
+
+    private void beginWrite() {
+        writeLock.lock();
+        if (writeDepth++ == 0) {
+            sequenceStamp = sequence.writeLock();    // Never waits: readers only take optimistic stamps
+        }
+    }
+
+    private void endWrite() {
+        try {
+            if (--writeDepth == 0 && (structuralChange || !pendingWeights.isEmpty() || !pendingProfiles.isEmpty())) {
+                version++;
+                publish();
+            }
+        } finally {
+            if (writeDepth == 0) {
+                sequence.unlockWrite(sequenceStamp);
+            }
+            writeLock.unlock();
+        }
+    }
+
+    // Method to publish the finished changes: patch the weights and travel-time profiles of a current snapshot, or
+    // leave it to be frozen again. The distance oracle is left stale, queries answer with Dijkstra until the next
+    // distanceOracle() repairs or rebuilds it outside the write lock. Profiles no edge uses any more are dropped
+    // here too, once there are enough of them; the published snapshot always uses the builder's ids.
+    private void publish() {
+        CsrGraph current = snapshot.get();
+        int[] renumbered = timeProfiles.needsCompaction() ? compactProfiles() : null;
+        if (!structuralChange && current != null && current.version() == version - 1) {
+            int[] weights = null;
+            if (!pendingWeights.isEmpty()) {
+                weights = current.copyWeights();
+                for (WeightChange change : pendingWeights) {
+                    current.patchSlots(weights, current.id(change.source), current.id(change.destination), change.weight);
+                }
+            }
+            TimeProfiles profiles = current.timeProfiles();
+            if (!pendingProfiles.isEmpty() || (renumbered != null && profiles != null)) {
+                int[] edgeProfiles = current.copyProfiles();
+                for (ProfileChange change : pendingProfiles) {
+                    current.patchSlots(edgeProfiles, current.id(change.source), current.id(change.destination), change.profile);
+                }
+                for (int edge = 0; renumbered != null && edge < edgeProfiles.length; edge++) {
+                    if (edgeProfiles[edge] >= 0) {
+                        edgeProfiles[edge] = renumbered[edgeProfiles[edge]];
+                    }
+                }
+                profiles = timeProfiles.build(edgeProfiles);
+            }
+            snapshot.set(current.withWeights(weights, profiles, version));
+        }
+        structuralChange = false;
+        pendingWeights.clear();
+        pendingProfiles.clear();
+    }
+
+    // Method to drop the travel-time profiles no edge uses any more and renumber the edges' profile ids;
+    // returns the new id of every old one, -1 for a dropped one
+    private int[] compactProfiles() {
+        boolean[] used = new boolean[timeProfiles.profileCount()];
+        for (List<Edge> edges : adjacencyList.values()) {
+            for (Edge edge : edges) {
+                if (edge.profile >= 0) {
+                    used[edge.profile] = true;
+                }
+            }
+        }
+        int[] renumbered = timeProfiles.compact(used);
+        for (List<Edge> edges : adjacencyList.values()) {
+            for (Edge edge : edges) {
+                if (edge.profile >= 0) {
+                    edge.profile = renumbered[edge.profile];
+                }
+            }
+        }
+        return renumbered;
+    }
+
+    // Method to freeze the current graph into an immutable, int-indexed CSR graph for querying
+    public CsrGraph freeze() {
+        writeLock.lock();
+        try {
+            return CsrGraph.of(this);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Method to get the published frozen copy of the graph; never waits for a writer once one exists
+    CsrGraph snapshot() {
+        if (writeLock.isHeldByCurrentThread() && (structuralChange || !pendingWeights.isEmpty() || !pendingProfiles.isEmpty())) {
+            return CsrGraph.of(this);    // Queried from inside a batch: see its own writes without publishing them
+        }
+        CsrGraph current = snapshot.get();
+        if (current != null && current.version() == version) {
+            return current;
+        }
+        if (writeLock.isHeldByCurrentThread()) {
+            return install(CsrGraph.of(this));    // Nothing written yet, so the copy is the current version
+        }
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long stamp = sequence.tryOptimisticRead();
+            if (stamp == 0 && current != null) {
+                return current;    // A writer is busy, keep answering from the last consistent version
+            }
+            if (stamp != 0) {
+                CsrGraph built = null;
+                try {
+                    built = CsrGraph.of(this);
+                } catch (RuntimeException e) {
+                    if (sequence.validate(stamp)) {
+                        throw e;    // Not caused by a concurrent writer
+                    }
+                }
+                if (sequence.validate(stamp)) {
+                    return install(built);
+                }
+            }
+            current = snapshot.get();
+            if (current != null && current.version() == version) {
+                return current;
+            }
+            Thread.onSpinWait();
+        }
+        writeLock.lock();    // Writers kept changing the maps; copy them while holding them off
+        try {
+            return install(CsrGraph.of(this));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Method to publish a freshly frozen snapshot unless a newer one is already there; returns the one to query
+    private CsrGraph install(CsrGraph built) {
+        CsrGraph current = snapshot.get();
+        while (current == null || current.version() < built.version()) {
+            if (snapshot.compareAndSet(current, built)) {
+                return built;
+            }
+            current = snapshot.get();
+        }
+        return current.version() == built.version() ? current : built;
+    }
+
+    // Method to get the query cache, e.g. to read its hit, miss and eviction counters
+    QueryCache queryCache() {
+        return cache;
+    }
+
+    // Method to answer a query from the cache when possible, timing it for the query metrics. Results are cached
+    // with the version of the snapshot they were computed on, so any change to the graph turns old entries into misses.
+    private <T> T cached(QueryMetrics.Query metric, List<Object> key, ToIntFunction<T> weigher, Function<CsrGraph, T> query) {
+        QueryMetrics.Timer timer = QueryMetrics.start(metric);
+        try {
+            CsrGraph current = snapshot();
+            if (writeLock.isHeldByCurrentThread()) {
+                return query.apply(current);    // Inside a batch the copy is unpublished and its version is not yet unique
+            }
+            return cache.get(key, current.version(), weigher, () -> query.apply(current));
+        } finally {
+            QueryMetrics.finish(timer);
+        }
+    }
+
+    // Methods to share cached results safely: the stored path is read-only and every caller gets its own holder
+    private static PathWithDistance sealed(PathWithDistance result) {
+        return new PathWithDistance(Collections.unmodifiableList(result.path), result.distance);
+    }
+
+    private static PathWithDistance copy(PathWithDistance result) {
+        return new PathWithDistance(result.path, result.distance);
+    }
+
+    // Method to find all paths from start node to end node
+    public List<PathWithDistance> findAllPaths(String start, String end) {
+        QueryMetrics.Timer timer = QueryMetrics.start(QueryMetrics.Query.ALL_PATHS);
+        try {
+            return snapshot().findAllPaths(start, end);
+        } finally {
+            QueryMetrics.finish(timer);
+        }
+    }
+
+    // Method to stream all paths from start node to end node lazily, within the limit and deadline of the control;
+    // the query metrics count its time until the stream is closed
+    public Stream<PathWithDistance> streamAllPaths(String start, String end, PathEnumerator.Control control, boolean parallel) {
+        return streamed(QueryMetrics.Query.STREAM_ALL_PATHS, current -> current.streamAllPaths(start, end, control, parallel));
+    }
+
+    // Method to create a path stream with its work and, until it is closed, its time charged to the query metrics
+    private Stream<PathWithDistance> streamed(QueryMetrics.Query metric, Function<CsrGraph, Stream<PathWithDistance>> query) {
+        QueryMetrics.Timer timer = QueryMetrics.start(metric);
+        Stream<PathWithDistance> paths;
+        try {
+            paths = query.apply(snapshot());
+        } catch (RuntimeException | Error e) {
+            QueryMetrics.finish(timer);
+            throw e;
+        }
+        return QueryMetrics.finishOnClose(timer, paths);
+    }
+
+    // Method to find the shortest path from start node to end node
+    public PathWithDistance shortestPath(String start, String end) {
+        return copy(cached(QueryMetrics.Query.SHORTEST_PATH, Arrays.asList("shortestPath", start, end), result -> result.path.size(),
+                graph -> {
+                    DistanceOracle tables = oracleFor(graph);
+                    return sealed(tables != null ? tables.shortestPath(start, end) : graph.shortestPath(start, end));
+                }));
+    }
+
+    // Method to find the quickest path from start to end leaving at the given minute (0 is midnight of the first day),
+    // with travel times from the edges' profiles; the distance of the result is the travel time in minutes
+    public PathWithDistance shortestPathDepartingAt(String start, String end, int departure) {
+        if (departure < 0) {
+            throw new IllegalArgumentException("Departure minute must not be negative: " + departure);
+        }
+        return copy(cached(QueryMetrics.Query.SHORTEST_PATH_DEPARTING, Arrays.asList("shortestPathDepartingAt", start, end, departure), result -> result.path.size(),
+                graph -> sealed(graph.shortestPathDepartingAt(start, end, departure))));
+    }
+
+    // Method to find the departure minutes within [windowStart, windowEnd], at most a day, with the least travel time
+    public List<Departure> bestDepartures(String start, String end, int windowStart, int windowEnd) {
+        if (windowStart < 0 || windowEnd < windowStart || windowEnd - windowStart >= TimeProfiles.DAY) {
+            throw new IllegalArgumentException("Departure window must be within one day: " + windowStart + ".." + windowEnd);
+        }
+        QueryMetrics.Timer timer = QueryMetrics.start(QueryMetrics.Query.BEST_DEPARTURES);
+        try {
+            return snapshot().bestDepartures(start, end, windowStart, windowEnd);
+        } finally {
+            QueryMetrics.finish(timer);
+        }
+    }
+
+    // Method to find the k shortest loopless paths from start to end, shortest first
+    public List<PathWithDistance> kShortestPaths(String start, String end, int k) {
+        List<PathWithDistance> paths = cached(QueryMetrics.Query.K_SHORTEST_PATHS, Arrays.asList("kShortestPaths", start, end, k),
+                result -> result.stream().mapToInt(path -> path.path.size() + 1).sum(),
+                graph -> {
+                    List<PathWithDistance> found = new ArrayList<>();
+                    for (PathWithDistance path : graph.kShortestPaths(start, end, k)) {
+                        found.add(sealed(path));
+                    }
+                    return found;
+                });
+        List<PathWithDistance> result = new ArrayList<>(paths.size());
+        for (PathWithDistance path : paths) {
+            result.add(copy(path));
+        }
+        return result;
+    }
+
+    // Method to compute the shortest distance from every source to every target in one batch
+    public DistanceMatrix distanceMatrix(List<String> sources, List<String> targets) {
+        QueryMetrics.Timer timer = QueryMetrics.start(QueryMetrics.Query.DISTANCE_MATRIX);
+        try {
+            return snapshot().distanceMatrix(sources, targets);
+        } finally {
+            QueryMetrics.finish(timer);
+        }
+    }
+
+    // Method to find the shortest path through interest points, visiting them in the given order
+    public PathWithDistance pathThroughInterestPoints(String start, List<String> interestPoints, String end) {
+        List<String> points = new ArrayList<>(interestPoints);
+        return copy(cached(QueryMetrics.Query.INTEREST_POINTS, Arrays.asList("pathThroughInterestPoints", start, points, end), result -> result.path.size(),
+                graph -> sealed(graph.pathThroughInterestPoints(start, points, end))));
+    }
+
+    // Method to find the shortest path through interest points, visiting them in any order
+    public PathWithDistance pathThroughInterestPointsAnyOrder(String start, List<String> interestPoints, String end) {
+        List<String> points = new ArrayList<>(interestPoints);
+        points.sort(Comparator.nullsFirst(Comparator.naturalOrder()));    // Any order: the same points give the same route
+        return copy(cached(QueryMetrics.Query.INTEREST_POINTS_ANY_ORDER, Arrays.asList("pathThroughInterestPointsAnyOrder", start, points, end), result -> result.path.size(),
+                graph -> sealed(graph.pathThroughInterestPointsAnyOrder(start, points, end))));
+    }
+
+    // Method to find paths from start to end with a maximum distance
+    public List<PathWithDistance> findPathsMaxDistance(String start, String end, int maxDistance) {
+        QueryMetrics.Timer timer = QueryMetrics.start(QueryMetrics.Query.PATHS_MAX_DISTANCE);
+        try {
+            CsrGraph current = snapshot();
+            DistanceOracle tables = oracleFor(current);
+            return tables != null ? tables.findPathsMaxDistance(start, end, maxDistance) : current.findPathsMaxDistance(start, end, maxDistance);
+        } finally {
+            QueryMetrics.finish(timer);
+        }
+    }
+
+    // Method to stream paths from start to end with a maximum distance lazily, within the limit and deadline of the control;
+    // the query metrics count its time until the stream is closed
+    public Stream<PathWithDistance> streamPathsMaxDistance(String start, String end, int maxDistance, PathEnumerator.Control control, boolean parallel) {
+        return streamed(QueryMetrics.Query.STREAM_PATHS_MAX_DISTANCE, current -> {
+            DistanceOracle tables = oracleFor(current);
+            return tables != null ? tables.streamPathsMaxDistance(start, end, maxDistance, control, parallel)
+                    : current.streamPathsMaxDistance(start, end, maxDistance, control, parallel);
+        });
+    }
+
+    // Method to get the all-pairs distance oracle for the current graph, building it on first use and repairing
+    // or rebuilding it after changes. While it matches the published snapshot, shortest paths are read from its
+    // tables and the max-distance path searches take their pruning bounds from them instead of running a Dijkstra.
+    public DistanceOracle distanceOracle() {
+        oracleLock.lock();
+        try {
+            CsrGraph current = snapshot();
+            DistanceOracle last = oracle.get();
+            DistanceOracle updated = last == null ? DistanceOracle.of(current) : last.updatedFor(current);
+            if (!writeLock.isHeldByCurrentThread()) {
+                oracle.compareAndSet(last, updated);    // Inside a batch the copy is unpublished, keep the oracle of the last published one
+            }
+            return updated;
+        } finally {
+            oracleLock.unlock();
+        }
+    }
+
+    // Method to let a distance oracle built elsewhere, e.g. DistanceOracle.load(file, graph.snapshot()), serve the
+    // shortest-path and max-distance queries. It must have been built for a snapshot of this graph; if the weights
+    // changed since, it is repaired for the current one.
+    public void attachDistanceOracle(DistanceOracle tables) {
+        if (writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Cannot attach a distance oracle inside a batch");
+        }
+        oracleLock.lock();
+        try {
+            CsrGraph current = snapshot();
+            if (!tables.isCurrent(current) && !tables.graph().sameEdges(current)) {
+                throw new IllegalArgumentException("The distance oracle was built for another graph or version");
+            }
+            oracle.set(tables.updatedFor(current));
+        } finally {
+            oracleLock.unlock();
+        }
+    }
+
+    // Method to get the distance oracle if it was built or repaired for exactly this snapshot
+    private DistanceOracle oracleFor(CsrGraph current) {
+        DistanceOracle tables = oracle.get();
+        return tables != null && tables.isCurrent(current) ? tables : null;
+    }
+
+    // Method to find the path with the minimum number of stops
+    public PathWithStops findPathWithMinStops(String start, String end) {
+        return findPathWithMinStops(start, end, false);
+    }
+
+    // Method to find the path with the minimum number of stops, preferring the shorter one among equal stops
+    public PathWithStops findPathWithMinStops(String start, String end, boolean breakTiesByDistance) {
+        PathWithStops found = cached(QueryMetrics.Query.MIN_STOPS, Arrays.asList("findPathWithMinStops", start, end, breakTiesByDistance), result -> result.path.size(),
+                graph -> {
+                    PathWithStops result = graph.findPathWithMinStops(start, end, breakTiesByDistance);
+                    return new PathWithStops(Collections.unmodifiableList(result.path), result.stops);
+                });
+        return new PathWithStops(found.path, found.stops);
+    }
+
+    // Method to find a path avoiding specified nodes
+    public PathWithDistance pathAvoidingNodes(String start, String end, Set<String> nodesToAvoid) {
+        Set<String> avoid = new HashSet<>(nodesToAvoid);
+        return copy(cached(QueryMetrics.Query.PATH_AVOIDING_NODES, Arrays.asList("pathAvoidingNodes", start, end, avoid), result -> result.path.size(),
+                graph -> sealed(graph.pathAvoidingNodes(start, end, avoid))));
+    }
+
+    // Method to find every route that no other route beats on both distance and stops, shortest first
+    public List<PathWithDistance> paretoRoutes(String start, String end) {
+        return paretoRoutes(start, end, Collections.emptySet(), Integer.MAX_VALUE);
+    }
+
+    // Method to find the Pareto front of (distance, stops) routes avoiding the given nodes and within
+    // maxDistance; along the front distance grows as stops fall, and stops = path size - 1
+    public List<PathWithDistance> paretoRoutes(String start, String end, Set<String> nodesToAvoid, int maxDistance) {
+        Set<String> avoid = new HashSet<>(nodesToAvoid);
+        List<PathWithDistance> routes = cached(QueryMetrics.Query.PARETO_ROUTES, Arrays.asList("paretoRoutes", start, end, avoid, maxDistance),
+                result -> result.stream().mapToInt(path -> path.path.size() + 1).sum(),
+                graph -> {
+                    List<PathWithDistance> found = new ArrayList<>();
+                    for (PathWithDistance path : graph.paretoRoutes(start, end, avoid, maxDistance)) {
+                        found.add(sealed(path));
+                    }
+                    return found;
+                });
+        List<PathWithDistance> result = new ArrayList<>(routes.size());
+        for (PathWithDistance path : routes) {
+            result.add(copy(path));
+        }
+        return result;
+    }
+
+// Class representing a pending weight change between two nodes
+private static class WeightChange {
+    final String source;
+    final String destination;
+    final int weight;
+
+    WeightChange(String source, String destination, int weight) {
+        this.source = source;
+        this.destination = destination;
+        this.weight = weight;
+    }
+}
+
+// Class representing a pending travel-time profile change between two nodes
+private static class ProfileChange {
+    final String source;
+    final String destination;
+    final int profile;
+
+    ProfileChange(String source, String destination, int profile) {
+        this.source = source;
+        this.destination = destination;
+        this.profile = profile;
+    }
+}
+
+// Class representing an edge with a destination node and weight
+static class Edge {
+    String destination;
+    int weight;
+    int profile = -1;    // Travel-time profile id in timeProfiles, -1 for none
+
+    Edge(String destination, int weight) {
+        this.destination = destination;
+        this.weight = weight;
+    }
+}
+
+// Class representing a path with a list of nodes and the total distance
+static class PathWithDistance {
+    List<String> path;
+    int distance;
+
+    PathWithDistance(List<String> path, int distance) {
+        this.path = path;
+        this.distance = distance;
+    }
+}
+
+
+// Class representing a path with a list of nodes and the number of stops
+static class PathWithStops {
+    List<String> path;
+    int stops;
+
+    PathWithStops(List<String> path, int stops) {
+        this.path = path;
+        this.stops = stops;
+    }
+}
+
+// Class representing a run of departure minutes that all arrive after the same travel time along the same path
+static class Departure {
+    int earliest;
+    int latest;
+    int travelTime;
+    List<String> path;
+
+    Departure(int earliest, int latest, int travelTime, List<String> path) {
+        this.earliest = earliest;
+        this.latest = latest;
+        this.travelTime = travelTime;
+        this.path = path;
+    }
+}
+
+// Method to build the example map used by the menu and the route server
+static Graph exampleGraph() {
+    Graph graph = new Graph();
+
+    // Example edges
+    graph.addEdge("Negombo", "Marawila", 28);
+    graph.addEdge("Negombo", "Kuliyapitiya", 47);
+    graph.addEdge("Marawila", "Kuliyapitiya", 30);
+    graph.addEdge("Marawila", "Kurunagala", 69);
+    graph.addEdge("Kuliyapitiya", "Kurunagala", 39);
+    graph.addEdge("Kuliyapitiya", "Galagedara", 77);
+    graph.addEdge("Kurunagala", "Galagedara", 38);
+    graph.addEdge("Kurunagala", "Kandy", 43);
+    graph.addEdge("Galagedara", "Kandy", 20);
+
+    // Adding places of interest
+    graph.addPlaceOfInterest("Negombo", "Lagoon");
+    graph.addPlaceOfInterest("Marawila", "Hotel Amagi");
+    graph.addPlaceOfInterest("Kuliyapitiya", "Ancient clock tower");
+    graph.addPlaceOfInterest("Kurunagala", "Kurunagala lake");
+    graph.addPlaceOfInterest("Galagedara", "RIVER BANK resort");
+    graph.addPlaceOfInterest("Kandy", "Sri Dalada Maligawa");
+
+    return graph;
+}
+}
@@ -0,0 +1,124 @@
+package pdsa;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Class finding the k shortest loopless paths between two nodes with Yen's algorithm.
+// Every round takes the last accepted path and runs one spur search per node on it, with
+// the root nodes and the edges already used by accepted paths with the same root blocked.
+// The spur searches of a round are independent and run in parallel.
+class KShortestPaths {
+    private final CsrGraph graph;
+    private final ShortestPathEngine engine;
+
+    KShortestPaths(CsrGraph graph) {
+        this.graph = graph;
+        this.engine = new ShortestPathEngine(graph);
+    }
+
+    // Class representing a path waiting to be accepted, with the order it was found in
+    private static class Candidate {
+        final ShortestPathEngine.NodePath path;
+        final long order;
+
+        Candidate(ShortestPathEngine.NodePath path, long order) {
+            this.path = path;
+            this.order = order;
+        }
+    }
+
+    // Method to find up to k loopless paths from start to end, shortest first
+    List<Graph.PathWithDistance> find(int start, int end, int k) {
+        List<Graph.PathWithDistance> result = new ArrayList<>();
+        if (k <= 0 || start < 0 || end < 0) {
+            return result;
+        }
+        ShortestPathEngine.NodePath first = engine.nodePath(start, end, null, null);
+        if (first == null) {
+            return result;
+        }
+
+        List<ShortestPathEngine.NodePath> accepted = new ArrayList<>();
+        accepted.add(first);
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(key(first.nodes));
+        // Candidates ordered by distance, then by the order they were found so results are deterministic
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+                Comparator.comparingInt((Candidate candidate) -> candidate.path.distance()).thenComparingLong(candidate -> candidate.order));
+        long found = 0;
+        QueryMetrics.Stats stats = QueryMetrics.current();    // Spur searches on worker threads count for this query
+        Deadline deadline = Deadline.current();               // and stop at its deadline
+
+        while (accepted.size() < k) {
+            ShortestPathEngine.NodePath previous = accepted.get(accepted.size() - 1);
+            ShortestPathEngine.NodePath[] spurs = new ShortestPathEngine.NodePath[previous.nodes.length - 1];
+            IntStream.range(0, spurs.length).parallel().forEach(i -> {
+                QueryMetrics.Stats bound = QueryMetrics.bind(stats);
+                Deadline before = Deadline.bind(deadline);
+                try {
+                    spurs[i] = spur(previous, i, accepted);
+                } finally {
+                    Deadline.unbind(before);
+                    QueryMetrics.unbind(bound);
+                }
+            });
+
+            for (ShortestPathEngine.NodePath candidate : spurs) {
+                if (candidate != null && seen.add(key(candidate.nodes))) {
+                    candidates.add(new Candidate(candidate, found++));
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.poll().path);
+        }
+
+        for (ShortestPathEngine.NodePath path : accepted) {
+            result.add(new Graph.PathWithDistance(graph.names(path.nodes, path.nodes.length), path.distance()));
+        }
+        return result;
+    }
+
+    // Method to build the candidate that follows previous up to index i and then deviates from it
+    private ShortestPathEngine.NodePath spur(ShortestPathEngine.NodePath previous, int i, List<ShortestPathEngine.NodePath> accepted) {
+        int spurNode = previous.nodes[i];
+        boolean[] blockedNodes = new boolean[graph.nodeCount()];
+        for (int j = 0; j < i; j++) {
+            blockedNodes[previous.nodes[j]] = true;    // Root nodes, so the spur cannot loop back
+        }
+        BitSet blockedEdges = new BitSet();
+        for (ShortestPathEngine.NodePath path : accepted) {
+            if (path.nodes.length > i + 1 && Arrays.equals(path.nodes, 0, i + 1, previous.nodes, 0, i + 1)) {
+                int next = path.nodes[i + 1];
+                for (int edge = graph.edgeStart(spurNode); edge < graph.edgeEnd(spurNode); edge++) {
+                    if (graph.target(edge) == next) {
+                        blockedEdges.set(edge);
+                    }
+                }
+            }
+        }
+
+        ShortestPathEngine.NodePath spur = engine.nodePath(spurNode, previous.nodes[previous.nodes.length - 1], blockedNodes, blockedEdges);
+        if (spur == null) {
+            return null;
+        }
+        int length = i + spur.nodes.length;
+        int[] nodes = Arrays.copyOf(previous.nodes, length);
+        int[] distances = Arrays.copyOf(previous.distances, length);
+        int rootDistance = previous.distances[i];
+        for (int j = 1; j < spur.nodes.length; j++) {
+            nodes[i + j] = spur.nodes[j];
+            distances[i + j] = rootDistance + spur.distances[j];
+        }
+        return new ShortestPathEngine.NodePath(nodes, distances);
+    }
+
+    private static List<Integer> key(int[] nodes) {
+        List<Integer> key = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            key.add(node);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,91 @@
+package pdsa;
+
+import java.util.Arrays;
+
+// Class representing a binary min-heap of primitive long keys.
+// Searches pack (distance << 32 | node) into one key so no entry objects are allocated.
+class LongMinHeap {
+    private long[] keys;
+    private int size;
+    private int peak;    // Largest size since the last clear, only tracked while metrics are enabled
+
+    LongMinHeap() {
+        this.keys = new long[64];
+    }
+
+    // Method to pack a non-negative distance and a node id into one heap key. Graph rejects negative weights, and
+    // every search compares a long distance sum against an int distance before narrowing it, so keys never wrap.
+    static long pack(int distance, int node) {
+        return ((long) distance << 32) | node;
+    }
+
+    static int distance(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int node(long key) {
+        return (int) key;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+        peak = 0;
+    }
+
+    int peak() {
+        return peak;
+    }
+
+    long peek() {
+        return keys[0];
+    }
+
+    // Method to add a key and sift it up to its place
+    void push(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int index = size++;
+        if (QueryMetrics.ENABLED && size > peak) {
+            peak = size;
+        }
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[index] = keys[parent];
+            index = parent;
+        }
+        keys[index] = key;
+    }
+
+    // Method to remove and return the smallest key
+    long pop() {
+        long top = keys[0];
+        long last = keys[--size];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (last <= keys[child]) {
+                break;
+            }
+            keys[index] = keys[child];
+            index = child;
+        }
+        keys[index] = last;
+        return top;
+    }
+}
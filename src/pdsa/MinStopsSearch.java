@@ -0,0 +1,108 @@
+package pdsa;
+
+import java.util.*;
+
+// Class running breadth-first search over a CsrGraph to find a path with the fewest stops in O(V + E).
+// Nodes are discovered in adjacency order, so the result is the same path the old exhaustive DFS
+// picked. Optionally, paths with the same number of stops are compared by total distance.
+class MinStopsSearch {
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final CsrGraph graph;
+
+    MinStopsSearch(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    // Class holding reusable BFS state; an entry is only valid while its stamp equals the current epoch
+    private static class Scratch {
+        int[] stops = new int[0];
+        int[] distances = new int[0];
+        int[] previousNodes = new int[0];
+        int[] stamps = new int[0];
+        int[] queue = new int[0];
+        int epoch;
+
+        void reset(int nodeCount) {
+            if (stamps.length < nodeCount) {
+                stops = new int[nodeCount];
+                distances = new int[nodeCount];
+                previousNodes = new int[nodeCount];
+                stamps = new int[nodeCount];
+                queue = new int[nodeCount];
+                epoch = 0;
+            }
+            if (++epoch == 0) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+    }
+
+    // Method to find the path with the minimum number of stops, breaking ties by distance if asked
+    Graph.PathWithStops findPathWithMinStops(int start, int end, boolean breakTiesByDistance) {
+        if (start < 0 || end < 0) {
+            return new Graph.PathWithStops(Collections.emptyList(), Integer.MAX_VALUE); // No path found
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(graph.nodeCount());
+        int epoch = scratch.epoch;
+        int head = 0;
+        int tail = 0;
+        scratch.queue[tail++] = start;
+        scratch.stamps[start] = epoch;
+        scratch.stops[start] = 0;
+        scratch.distances[start] = 0;
+        scratch.previousNodes[start] = -1;
+
+        long relaxed = 0;
+        int queuePeak = 1;
+        Deadline deadline = Deadline.current();
+        while (head < tail) {
+            int current = scratch.queue[head++];
+            Deadline.check(deadline, head);
+            int stops = scratch.stops[current];
+            if (current == end) {
+                break;
+            }
+            // Without tie-breaking the first discovery is final, so stop as soon as end is queued
+            if (!breakTiesByDistance && scratch.stamps[end] == epoch) {
+                break;
+            }
+            if (breakTiesByDistance && scratch.stamps[end] == epoch && scratch.stops[end] <= stops) {
+                break;    // Every remaining node is at least as far from start as end already is
+            }
+            for (int edge = graph.edgeStart(current), last = graph.edgeEnd(current); edge < last; edge++) {
+                int neighbor = graph.target(edge);
+                long distance = (long) scratch.distances[current] + graph.weight(edge);
+                relaxed++;
+                if (scratch.stamps[neighbor] != epoch) {
+                    scratch.stamps[neighbor] = epoch;
+                    scratch.stops[neighbor] = stops + 1;
+                    scratch.distances[neighbor] = (int) Math.min(distance, Integer.MAX_VALUE);
+                    scratch.previousNodes[neighbor] = current;
+                    scratch.queue[tail++] = neighbor;
+                    if (QueryMetrics.ENABLED) {
+                        queuePeak = Math.max(queuePeak, tail - head);
+                    }
+                } else if (breakTiesByDistance && scratch.stops[neighbor] == stops + 1 && distance < scratch.distances[neighbor]) {
+                    scratch.distances[neighbor] = (int) distance;
+                    scratch.previousNodes[neighbor] = current;
+                }
+            }
+        }
+
+        if (QueryMetrics.ENABLED) {
+            QueryMetrics.search(head, relaxed, queuePeak);
+        }
+        if (scratch.stamps[end] != epoch) {
+            return new Graph.PathWithStops(Collections.emptyList(), Integer.MAX_VALUE); // No path found
+        }
+        int stops = scratch.stops[end];
+        String[] path = new String[stops + 1];
+        for (int node = end, i = stops; node != -1; node = scratch.previousNodes[node], i--) {
+            path[i] = graph.name(node);
+        }
+        return new Graph.PathWithStops(Arrays.asList(path), stops);
+    }
+}
@@ -0,0 +1,216 @@
+package pdsa;
+
+import java.util.*;
+
+// Class finding every Pareto-optimal (distance, stops) route between two nodes of a CsrGraph in one
+// label-setting search (bi-objective A*, in the style of BOA*). A label is a partial route: its node,
+// distance, stops and parent label, kept in parallel primitive arrays that are reused per thread.
+// Labels are taken in order of (distance + remaining distance, stops + remaining stops), both bounds
+// exact for the graph without the avoided nodes (one Dijkstra and one BFS from the end; edges run
+// both ways). Taken in that order, a label is dominated exactly when its node, or the end, already
+// has a label with no more stops, so one "fewest stops so far" number per node does all the pruning.
+// Avoided nodes and the maximum distance are hard constraints applied while labels are generated.
+class ParetoSearch {
+    private static final int UNREACHABLE = ShortestPathEngine.UNREACHABLE;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final CsrGraph graph;
+    private final ShortestPathEngine engine;
+
+    ParetoSearch(CsrGraph graph, ShortestPathEngine engine) {
+        this.graph = graph;
+        this.engine = engine;
+    }
+
+    // Class holding reusable search state; per-node entries are only valid while their stamp equals the current epoch
+    private static class Scratch {
+        int[] minStops = new int[0];    // Fewest stops of any label taken at the node
+        int[] hops = new int[0];        // Fewest stops from the node to the end
+        int[] stamps = new int[0];
+        int[] queue = new int[0];
+        int epoch;
+
+        // Label pool
+        int[] labelNode = new int[1024];
+        int[] labelDistance = new int[1024];
+        int[] labelStops = new int[1024];
+        int[] labelParent = new int[1024];
+        long[] labelKey = new long[1024];    // (distance bound << 32 | stops bound), the queue order
+        int labelCount;
+
+        // Binary heap of label ids ordered by labelKey
+        int[] heap = new int[1024];
+        int heapSize;
+        int heapPeak;
+
+        void reset(int nodeCount) {
+            if (stamps.length < nodeCount) {
+                minStops = new int[nodeCount];
+                hops = new int[nodeCount];
+                stamps = new int[nodeCount];
+                queue = new int[nodeCount];
+                epoch = 0;
+            }
+            if (++epoch == 0) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+            labelCount = 0;
+            heapSize = 0;
+            heapPeak = 0;
+        }
+
+        int minStops(int node) {
+            return stamps[node] == epoch ? minStops[node] : Integer.MAX_VALUE;
+        }
+
+        int addLabel(int node, int distance, int stops, int parent, long key) {
+            if (labelCount == labelNode.length) {
+                int capacity = labelCount * 2;
+                labelNode = Arrays.copyOf(labelNode, capacity);
+                labelDistance = Arrays.copyOf(labelDistance, capacity);
+                labelStops = Arrays.copyOf(labelStops, capacity);
+                labelParent = Arrays.copyOf(labelParent, capacity);
+                labelKey = Arrays.copyOf(labelKey, capacity);
+            }
+            labelNode[labelCount] = node;
+            labelDistance[labelCount] = distance;
+            labelStops[labelCount] = stops;
+            labelParent[labelCount] = parent;
+            labelKey[labelCount] = key;
+            return labelCount++;
+        }
+
+        void push(int label) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            long key = labelKey[label];
+            int index = heapSize++;
+            heapPeak = Math.max(heapPeak, heapSize);
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (labelKey[heap[parent]] <= key) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = label;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--heapSize];
+            long key = labelKey[last];
+            int index = 0;
+            int half = heapSize >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < heapSize && labelKey[heap[child + 1]] < labelKey[heap[child]]) {
+                    child++;
+                }
+                if (key <= labelKey[heap[child]]) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            if (heapSize > 0) {
+                heap[index] = last;
+            }
+            return top;
+        }
+    }
+
+    // Method to find the Pareto front of routes from start to end that avoid the blocked nodes (may be null)
+    // and are at most maxDistance long. Routes come shortest first, each with fewer stops than the one before;
+    // the stops of a route are its path length minus one. Empty when no route meets the constraints.
+    List<Graph.PathWithDistance> find(int start, int end, boolean[] blocked, int maxDistance) {
+        List<Graph.PathWithDistance> front = new ArrayList<>();
+        if (start < 0 || end < 0 || (blocked != null && (blocked[start] || blocked[end]))) {
+            return front;
+        }
+        int[] remaining = engine.distancesFrom(end, blocked);
+        if (remaining[start] > maxDistance) {
+            return front;    // Also covers an unreachable end
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(graph.nodeCount());
+        hopsTo(scratch, end, blocked);
+
+        scratch.push(scratch.addLabel(start, 0, 0, -1, key(remaining[start], scratch.hops[start])));
+        int taken = 0;
+        long relaxed = 0;
+        long popped = 0;
+        Deadline deadline = Deadline.current();    // The label pool has no bound, so the deadline is what stops a huge front
+        while (scratch.heapSize > 0) {
+            int label = scratch.pop();
+            Deadline.check(deadline, ++popped);
+            int node = scratch.labelNode[label];
+            int stops = scratch.labelStops[label];
+            if (stops >= scratch.minStops(node) || stops + scratch.hops[node] >= scratch.minStops(end)) {
+                continue;    // Dominated by a label taken earlier, here or at the end
+            }
+            scratch.minStops[node] = stops;
+            scratch.stamps[node] = scratch.epoch;
+            taken++;
+            if (node == end) {
+                front.add(route(scratch, label));
+                continue;
+            }
+            int distance = scratch.labelDistance[label];
+            for (int edge = graph.edgeStart(node), last = graph.edgeEnd(node); edge < last; edge++) {
+                int neighbor = graph.target(edge);
+                relaxed++;
+                if (remaining[neighbor] == UNREACHABLE) {
+                    continue;    // Blocked, or cut off from the end by blocked nodes
+                }
+                long newDistance = (long) distance + graph.weight(edge);
+                if (newDistance + remaining[neighbor] > maxDistance
+                        || stops + 1 >= scratch.minStops(neighbor)
+                        || stops + 1 + scratch.hops[neighbor] >= scratch.minStops(end)) {
+                    continue;
+                }
+                scratch.push(scratch.addLabel(neighbor, (int) newDistance, stops + 1, label,
+                        key((int) (newDistance + remaining[neighbor]), stops + 1 + scratch.hops[neighbor])));
+            }
+        }
+        if (QueryMetrics.ENABLED) {
+            QueryMetrics.search(taken, relaxed, scratch.heapPeak);
+        }
+        return front;
+    }
+
+    private static long key(int distanceBound, int stopsBound) {
+        return ((long) distanceBound << 32) | stopsBound;
+    }
+
+    // Method to count the fewest stops from every node to end by BFS, skipping blocked nodes
+    private void hopsTo(Scratch scratch, int end, boolean[] blocked) {
+        Arrays.fill(scratch.hops, 0, graph.nodeCount(), Integer.MAX_VALUE);
+        int head = 0;
+        int tail = 0;
+        scratch.queue[tail++] = end;
+        scratch.hops[end] = 0;
+        while (head < tail) {
+            int node = scratch.queue[head++];
+            for (int edge = graph.edgeStart(node), last = graph.edgeEnd(node); edge < last; edge++) {
+                int neighbor = graph.target(edge);
+                if (scratch.hops[neighbor] == Integer.MAX_VALUE && (blocked == null || !blocked[neighbor])) {
+                    scratch.hops[neighbor] = scratch.hops[node] + 1;
+                    scratch.queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    // Method to follow parent labels back to the start
+    private Graph.PathWithDistance route(Scratch scratch, int label) {
+        String[] path = new String[scratch.labelStops[label] + 1];
+        for (int current = label, i = path.length - 1; current != -1; current = scratch.labelParent[current], i--) {
+            path[i] = graph.name(scratch.labelNode[current]);
+        }
+        return new Graph.PathWithDistance(Arrays.asList(path), scratch.labelDistance[label]);
+    }
+}
@@ -0,0 +1,240 @@
+package pdsa;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Class enumerating simple paths from start to end lazily, one path per tryAdvance.
+// The DFS keeps its own explicit stack, so no result list is built up front. trySplit hands
+// half of the untried edges at the shallowest level of that stack to a new enumerator, which
+// lets a parallel Stream spread the upper levels of the search over the fork-join pool.
+// Branches are cut when even the shortest way on to end would exceed the distance budget.
+class PathEnumerator implements Spliterator<Graph.PathWithDistance> {
+    private static final int UNREACHABLE = ShortestPathEngine.UNREACHABLE;
+    private static final int CHECK_INTERVAL = 1024;    // DFS steps between deadline and cancellation checks
+
+    private final CsrGraph graph;
+    private final int end;
+    private final int maxDistance;
+    private final int[] lowerBounds;    // Shortest distance from every node to end, ignoring the visited set
+    private final Control control;
+    private final QueryMetrics.Stats stats;    // Query the enumeration was started for, shared with splits
+
+    private int[] path;
+    private int[] cursor;     // Next edge to try at each level
+    private int[] limit;      // End of the edge range this enumerator owns at each level
+    private int[] distance;
+    private int depth;
+    private boolean[] visited;    // Built lazily, so a split that is never run costs no O(V) array
+    private boolean emitStart;
+    private long estimate = Long.MAX_VALUE;
+    private int steps;
+    private long expanded;    // DFS nodes pushed since the last metrics flush
+
+    // Class shared by all parts of one enumeration: result limit, deadline and cancellation
+    static class Control {
+        private final long limit;
+        private final long deadline;
+        private final AtomicLong emitted = new AtomicLong();
+        private volatile boolean cancelled;
+
+        // Constructor taking the maximum number of paths and a timeout in milliseconds (0 for none)
+        Control(long limit, long timeoutMillis) {
+            this.limit = limit;
+            this.deadline = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000L : 0;
+        }
+
+        static Control unbounded() {
+            return new Control(Long.MAX_VALUE, 0);
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        long emitted() {
+            return Math.min(emitted.get(), limit);
+        }
+
+        boolean expired() {
+            if (!cancelled && deadline != 0 && System.nanoTime() - deadline > 0) {
+                cancelled = true;
+            }
+            return cancelled;
+        }
+
+        // Method to claim a slot for one more path; stops the enumeration once the limit is used up
+        boolean tryEmit() {
+            if (emitted.incrementAndGet() > limit) {
+                cancelled = true;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private PathEnumerator(CsrGraph graph, int end, int maxDistance, int[] lowerBounds, Control control, QueryMetrics.Stats stats, int capacity) {
+        this.graph = graph;
+        this.end = end;
+        this.maxDistance = maxDistance;
+        this.lowerBounds = lowerBounds;
+        this.control = control;
+        this.stats = stats;
+        this.path = new int[capacity];
+        this.cursor = new int[capacity];
+        this.limit = new int[capacity];
+        this.distance = new int[capacity];
+    }
+
+    // Method to enumerate simple paths from start to end with a total distance of at most maxDistance
+    static Spliterator<Graph.PathWithDistance> of(CsrGraph graph, int start, int end, int maxDistance, Control control) {
+        if (start < 0 || end < 0 || maxDistance < 0) {
+            return Spliterators.emptySpliterator();
+        }
+        return of(graph, start, end, maxDistance, new ShortestPathEngine(graph).distancesFrom(end, null), control);
+    }
+
+    // Method to enumerate paths using precomputed distances to end as the pruning bound
+    static Spliterator<Graph.PathWithDistance> of(CsrGraph graph, int start, int end, int maxDistance, int[] lowerBounds, Control control) {
+        if (start < 0 || end < 0 || lowerBounds[start] == UNREACHABLE || lowerBounds[start] > maxDistance) {
+            return Spliterators.emptySpliterator();
+        }
+        PathEnumerator paths = new PathEnumerator(graph, end, maxDistance, lowerBounds, control, QueryMetrics.current(), 16);
+        paths.path[0] = start;
+        if (start == end) {
+            paths.emitStart = true;
+            paths.cursor[0] = paths.limit[0] = 0;
+        } else {
+            paths.cursor[0] = graph.edgeStart(start);
+            paths.limit[0] = graph.edgeEnd(start);
+        }
+        return paths;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Graph.PathWithDistance> action) {
+        if (emitStart) {
+            emitStart = false;
+            if (control.tryEmit()) {
+                flush(1);
+                action.accept(new Graph.PathWithDistance(graph.names(path, 1), 0));
+                return true;
+            }
+            return false;
+        }
+        if (depth < 0) {
+            return false;
+        }
+        if (visited == null) {
+            visited = new boolean[graph.nodeCount()];
+            for (int i = 0; i <= depth; i++) {
+                visited[path[i]] = true;
+            }
+        }
+
+        while (depth >= 0) {
+            if (++steps == CHECK_INTERVAL) {
+                steps = 0;
+                if (control.expired()) {
+                    depth = -1;
+                    flush(0);
+                    return false;
+                }
+            }
+            if (cursor[depth] >= limit[depth]) {
+                visited[path[depth]] = false;
+                depth--;
+                continue;
+            }
+            int edge = cursor[depth]++;
+            int next = graph.target(edge);
+            long nextDistance = (long) distance[depth] + graph.weight(edge);
+            if (visited[next] || lowerBounds[next] == UNREACHABLE || nextDistance + lowerBounds[next] > maxDistance) {
+                continue;    // Already on the path, or end cannot be reached from next within the budget
+            }
+            if (next == end) {
+                if (!control.tryEmit()) {
+                    depth = -1;
+                    flush(0);
+                    return false;
+                }
+                flush(1);
+                int[] found = Arrays.copyOf(path, depth + 2);
+                found[depth + 1] = end;
+                action.accept(new Graph.PathWithDistance(graph.names(found, found.length), (int) nextDistance));
+                return true;
+            }
+            push(next, (int) nextDistance);
+        }
+        flush(0);
+        return false;
+    }
+
+    // Method to hand the work done since the last call to the query metrics
+    private void flush(long emitted) {
+        if (QueryMetrics.ENABLED) {
+            QueryMetrics.enumeration(stats, expanded, emitted);
+            expanded = 0;
+        }
+    }
+
+    private void push(int node, int nodeDistance) {
+        depth++;
+        if (depth == path.length) {
+            int size = path.length * 2;
+            path = Arrays.copyOf(path, size);
+            cursor = Arrays.copyOf(cursor, size);
+            limit = Arrays.copyOf(limit, size);
+            distance = Arrays.copyOf(distance, size);
+        }
+        path[depth] = node;
+        distance[depth] = nodeDistance;
+        cursor[depth] = graph.edgeStart(node);
+        limit[depth] = graph.edgeEnd(node);
+        visited[node] = true;
+        if (QueryMetrics.ENABLED) {
+            expanded++;
+        }
+    }
+
+    @Override
+    public Spliterator<Graph.PathWithDistance> trySplit() {
+        if (emitStart || control.isCancelled()) {
+            return null;
+        }
+        for (int level = 0; level <= depth; level++) {
+            int untried = limit[level] - cursor[level];
+            // A level with a single untried edge can only be handed off if deeper work stays behind
+            if (untried >= 2 || (untried == 1 && level < depth)) {
+                int middle = cursor[level] + untried / 2;
+                PathEnumerator split = new PathEnumerator(graph, end, maxDistance, lowerBounds, control, stats, Math.max(16, level + 1));
+                System.arraycopy(path, 0, split.path, 0, level + 1);
+                System.arraycopy(distance, 0, split.distance, 0, level + 1);
+                System.arraycopy(limit, 0, split.cursor, 0, level);    // Nothing left to try above the split level
+                System.arraycopy(limit, 0, split.limit, 0, level);
+                split.cursor[level] = middle;
+                split.limit[level] = limit[level];
+                split.depth = level;
+                limit[level] = middle;
+                estimate >>>= 1;
+                split.estimate = estimate;
+                return split;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,481 @@
+package pdsa;
+
+import java.util.*;
+
+// Class indexing the places of interest of one graph version for autocomplete and reverse lookup.
+// Place names are normalised (trimmed, runs of whitespace collapsed, lower case) and stored back to
+// back in one char array. Every word start in that text is an entry of a sorted suffix array, so a
+// prefix of any word in a name is one binary search away. The sorted entries also form an implicit
+// trie (entries sharing a prefix are contiguous), which the typo-tolerant search walks with one
+// edit-distance row per depth, pruning subtrees that are already too far from the query. As in
+// most suggesters the first character is taken as typed and a swap of two neighbours is one edit.
+// Each distinct name maps to the ids of the cities that have it, CSR style. Places of cities that
+// are not on the map are left out and counted. Like an AStarSearch it belongs to one graph version.
+class PlaceIndex {
+    private static final int END = -1;              // Character "after" the end of a name; sorts before every real one
+    private static final int EXACT_PREFIX = 1;      // Leading characters of a query the fuzzy search does not edit
+    private static final int HEAD_CHARS = 3;        // Leading characters of each suffix copied into heads
+    private static final int HEAD_BITS = 17;
+
+    private final CsrGraph graph;
+    private final char[] text;            // Normalised names, concatenated in sorted order
+    private final int[] placeStart;       // Start of name p in text; placeStart[placeCount] == text.length
+    private final String[] displayNames;  // Trimmed name as first added, per distinct normalised name
+    private final int[] cityOffsets;      // Cities of name p are cityIds[cityOffsets[p] .. cityOffsets[p + 1])
+    private final int[] cityIds;
+    private final int[] suffixes;         // Text positions of every word start, sorted by the text from there to the end of its name
+    private final int[] suffixPlace;      // Name each suffix belongs to
+    private final long[] heads;           // First HEAD_CHARS characters of each suffix, packed so the wide top levels of a search stay in one array
+    private final int unmatched;
+
+    // Class representing one search result: a place, the cities it is in and how many edits the query needed
+    static class Match {
+        final String place;
+        final List<String> cities;
+        final int edits;
+
+        Match(String place, List<String> cities, int edits) {
+            this.place = place;
+            this.cities = cities;
+            this.edits = edits;
+        }
+
+        @Override
+        public String toString() {
+            return place + " (" + String.join(", ", cities) + (edits == 1 ? ", 1 edit" : edits > 1 ? ", " + edits + " edits" : "") + ")";
+        }
+    }
+
+    private PlaceIndex(CsrGraph graph, char[] text, int[] placeStart, String[] displayNames, int[] cityOffsets,
+                       int[] cityIds, int[] suffixes, int[] suffixPlace, long[] heads, int unmatched) {
+        this.graph = graph;
+        this.text = text;
+        this.placeStart = placeStart;
+        this.displayNames = displayNames;
+        this.cityOffsets = cityOffsets;
+        this.cityIds = cityIds;
+        this.suffixes = suffixes;
+        this.suffixPlace = suffixPlace;
+        this.heads = heads;
+        this.unmatched = unmatched;
+    }
+
+    // Method to index the places of interest of the current state of a graph
+    static PlaceIndex of(Graph graph) {
+        return of(graph.freeze());
+    }
+
+    // Method to index the places of interest of a frozen graph
+    static PlaceIndex of(CsrGraph graph) {
+        int total = 0;
+        for (List<String> places : graph.placesOfInterest.values()) {
+            total += places.size();
+        }
+        String[] keys = new String[total];
+        String[] shown = new String[total];
+        int[] cityOf = new int[total];
+        int count = 0;
+        int unmatched = 0;
+        for (Map.Entry<String, List<String>> entry : graph.placesOfInterest.entrySet()) {
+            int city = graph.id(entry.getKey());
+            for (String place : entry.getValue()) {
+                String name = tidy(place);
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (city < 0) {
+                    unmatched++;
+                    continue;
+                }
+                keys[count] = name.toLowerCase(Locale.ROOT);
+                shown[count] = name;
+                cityOf[count] = city;
+                count++;
+            }
+        }
+
+        // Sort the (name, city) pairs so equal names and their cities are adjacent; a city listing a place twice counts once
+        Integer[] pairs = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = i;
+        }
+        Arrays.parallelSort(pairs, (a, b) -> {
+            int order = keys[a].compareTo(keys[b]);
+            return order != 0 ? order : Integer.compare(cityOf[a], cityOf[b]);
+        });
+        StringBuilder text = new StringBuilder();
+        String[] displayNames = new String[count];
+        int[] placeStart = new int[count + 1];
+        int[] cityOffsets = new int[count + 1];
+        int[] cityIds = new int[count];
+        int placeCount = 0;
+        int cityCount = 0;
+        int suffixCount = 0;
+        for (int i = 0; i < count; i++) {
+            int pair = pairs[i];
+            boolean newName = i == 0 || !keys[pair].equals(keys[pairs[i - 1]]);
+            if (newName) {
+                cityOffsets[placeCount] = cityCount;
+                placeStart[placeCount] = text.length();
+                displayNames[placeCount++] = shown[pair];
+                text.append(keys[pair]);
+                suffixCount += 1 + (int) keys[pair].chars().filter(c -> c == ' ').count();
+            }
+            if (newName || cityOf[pair] != cityOf[pairs[i - 1]]) {
+                cityIds[cityCount++] = cityOf[pair];
+            }
+        }
+        cityOffsets[placeCount] = cityCount;
+        placeStart[placeCount] = text.length();
+
+        char[] chars = text.toString().toCharArray();
+        int[] starts = Arrays.copyOf(placeStart, placeCount + 1);
+        int[] suffixes = new int[suffixCount];
+        int[] suffixPlace = new int[suffixCount];
+        int s = 0;
+        for (int p = 0; p + 1 < starts.length; p++) {
+            for (int i = starts[p]; i < starts[p + 1]; i++) {
+                if (i == starts[p] || chars[i - 1] == ' ') {
+                    suffixes[s] = i;
+                    suffixPlace[s] = p;
+                    s++;
+                }
+            }
+        }
+        Integer[] order = new Integer[suffixCount];
+        for (int i = 0; i < suffixCount; i++) {
+            order[i] = i;
+        }
+        long[] unsortedHeads = new long[suffixCount];
+        for (int i = 0; i < suffixCount; i++) {
+            unsortedHeads[i] = head(chars, suffixes[i], starts[suffixPlace[i] + 1]);
+        }
+        Arrays.parallelSort(order, (a, b) -> {
+            int byHead = Long.compare(unsortedHeads[a], unsortedHeads[b]);
+            return byHead != 0 ? byHead : compare(chars, suffixes[a], starts[suffixPlace[a] + 1], suffixes[b], starts[suffixPlace[b] + 1]);
+        });
+        int[] sorted = new int[suffixCount];
+        int[] sortedPlace = new int[suffixCount];
+        long[] heads = new long[suffixCount];
+        for (int i = 0; i < suffixCount; i++) {
+            sorted[i] = suffixes[order[i]];
+            sortedPlace[i] = suffixPlace[order[i]];
+            heads[i] = unsortedHeads[order[i]];
+        }
+        return new PlaceIndex(graph, chars, starts, Arrays.copyOf(displayNames, placeCount), Arrays.copyOf(cityOffsets, placeCount + 1),
+                Arrays.copyOf(cityIds, cityCount), sorted, sortedPlace, heads, unmatched);
+    }
+
+    // Method to normalise a place name or query: trimmed, single spaces, lower case
+    static String normalise(String name) {
+        return tidy(name).toLowerCase(Locale.ROOT);
+    }
+
+    // Method to trim a name and collapse each run of whitespace inside it to one space
+    private static String tidy(String name) {
+        String trimmed = name.strip();
+        StringBuilder tidy = null;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            boolean space = Character.isWhitespace(c);
+            if (tidy == null && space && (c != ' ' || Character.isWhitespace(trimmed.charAt(i + 1)))) {
+                tidy = new StringBuilder(trimmed.length()).append(trimmed, 0, i);
+            }
+            if (tidy != null && (!space || !Character.isWhitespace(trimmed.charAt(i - 1)))) {
+                tidy.append(space ? ' ' : c);
+            }
+        }
+        return tidy == null ? trimmed : tidy.toString();
+    }
+
+    // Method to pack the first characters of text[start, end) as char + 1, 0 past the end, so heads sort like the text
+    private static long head(char[] text, int start, int end) {
+        long head = 0;
+        for (int depth = 0; depth < HEAD_CHARS; depth++) {
+            head = head << HEAD_BITS | (start + depth < end ? text[start + depth] + 1 : 0);
+        }
+        return head;
+    }
+
+    private static int compare(char[] text, int a, int aEnd, int b, int bEnd) {
+        int length = Math.min(aEnd - a, bEnd - b);
+        int mismatch = Arrays.mismatch(text, a, a + length, text, b, b + length);
+        if (mismatch >= 0) {
+            return Character.compare(text[a + mismatch], text[b + mismatch]);
+        }
+        return Integer.compare(aEnd - a, bEnd - b);
+    }
+
+    // Method to check whether the index still matches the graph; any structural change invalidates it
+    boolean isCurrent(Graph source) {
+        return source.version() == graph.version();
+    }
+
+    int size() {
+        return displayNames.length;
+    }
+
+    // Method to get the number of places left out because their city is not on the map
+    int unmatchedPlaces() {
+        return unmatched;
+    }
+
+    // Method to find the cities that have a place of interest with this name (any case or spacing)
+    List<String> citiesOf(String place) {
+        int found = find(normalise(place));
+        return found < 0 ? Collections.emptyList() : cities(found);
+    }
+
+    // Method to complete a prefix of any word in a place name; names starting with it come first
+    List<Match> complete(String prefix, int limit) {
+        return matches(completions(normalise(prefix), limit), 0);
+    }
+
+    // Method to complete a possibly misspelled prefix: queries of one or two characters must match
+    // exactly, up to five characters may have one typo and longer ones two
+    List<Match> search(String prefix, int limit) {
+        int length = normalise(prefix).length();
+        return search(prefix, length < 3 ? 0 : length < 6 ? 1 : 2, limit);
+    }
+
+    // Method to complete a possibly misspelled prefix: exact completions first, then ones within maxEdits
+    // insertions, deletions, substitutions or swaps of neighbouring characters, fewest edits first
+    List<Match> search(String prefix, int maxEdits, int limit) {
+        String key = normalise(prefix);
+        LinkedHashSet<Integer> exact = completions(key, limit);
+        List<Match> matches = matches(exact, 0);
+        if (matches.size() >= limit || maxEdits <= 0 || key.isEmpty()) {
+            return matches;
+        }
+        // Ranges of entries whose shared prefix is within the edit budget, bucketed by edits
+        List<List<int[]>> hits = new ArrayList<>();
+        for (int e = 0; e <= maxEdits; e++) {
+            hits.add(new ArrayList<>());
+        }
+        int[] row = new int[key.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        walk(key, maxEdits, 0, 0, suffixes.length, null, row, END, hits);
+        Set<Integer> seen = new HashSet<>(exact);
+        for (int e = 1; e <= maxEdits && matches.size() < limit; e++) {
+            for (int[] range : hits.get(e)) {
+                for (int i = range[0]; i < range[1] && matches.size() < limit; i++) {
+                    if (seen.add(suffixPlace[i])) {
+                        matches.add(new Match(displayNames[suffixPlace[i]], cities(suffixPlace[i]), e));
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Method to collect up to limit names with a word starting with key, names starting with it first
+    private LinkedHashSet<Integer> completions(String key, int limit) {
+        LinkedHashSet<Integer> found = new LinkedHashSet<>();
+        // Names are stored in sorted order, so the names starting with the key are one contiguous run
+        for (int place = lowerBoundPlace(key); place < displayNames.length && found.size() < limit
+                && startsWith(placeStart[place], placeStart[place + 1], key); place++) {
+            found.add(place);
+        }
+        for (int i = lowerBound(key); i < suffixes.length && found.size() < limit
+                && startsWith(suffixes[i], placeStart[suffixPlace[i] + 1], key); i++) {
+            found.add(suffixPlace[i]);
+        }
+        return found;
+    }
+
+    private List<Match> matches(Collection<Integer> places, int edits) {
+        List<Match> matches = new ArrayList<>(places.size());
+        for (int place : places) {
+            matches.add(new Match(displayNames[place], cities(place), edits));
+        }
+        return matches;
+    }
+
+    // Method to visit the trie node of entries [lo, hi) sharing their first depth characters, the last
+    // of which is last. row holds the edit distances between the prefixes of the query and the node's
+    // prefix, parent those of the node above (for swaps). Records the node when the whole query fits.
+    private void walk(String key, int maxEdits, int depth, int lo, int hi, int[] parent, int[] row, int last, List<List<int[]>> hits) {
+        int m = key.length();
+        if (depth >= EXACT_PREFIX && row[m] <= maxEdits) {
+            hits.get(row[m]).add(new int[]{lo, hi});
+        }
+        // Entries that end here sort first; the rest are grouped by their next character
+        while (lo < hi && charAt(lo, depth) == END) {
+            lo++;
+        }
+        int rowMin = Integer.MAX_VALUE;
+        for (int value : row) {
+            rowMin = Math.min(rowMin, value);
+        }
+        if (depth < EXACT_PREFIX && depth < m) {
+            int c = key.charAt(depth);
+            int start = lowerBound(c, depth, lo, hi);
+            child(key, maxEdits, depth, start, upperBound(c, depth, start, hi), parent, row, last, c, hits);
+        } else if (rowMin == maxEdits) {
+            // The budget is used up, so only a character the query has next (or a swap) can keep a child within it
+            int[] wanted = new int[2 * m];
+            int count = 0;
+            for (int j = 1; j <= m; j++) {
+                if (row[j - 1] == maxEdits) {
+                    wanted[count++] = key.charAt(j - 1);
+                }
+                if (j > 1 && parent != null && key.charAt(j - 1) == last && parent[j - 2] + 1 <= maxEdits) {
+                    wanted[count++] = key.charAt(j - 2);
+                }
+            }
+            Arrays.sort(wanted, 0, count);
+            for (int i = 0; i < count && lo < hi; i++) {
+                if (i > 0 && wanted[i] == wanted[i - 1]) {
+                    continue;
+                }
+                int start = lowerBound(wanted[i], depth, lo, hi);
+                int end = upperBound(wanted[i], depth, start, hi);
+                if (start < end) {
+                    child(key, maxEdits, depth, start, end, parent, row, last, wanted[i], hits);
+                }
+                lo = end;
+            }
+        } else {
+            while (lo < hi) {
+                int c = charAt(lo, depth);
+                int end = upperBound(c, depth, lo, hi);
+                child(key, maxEdits, depth, lo, end, parent, row, last, c, hits);
+                lo = end;
+            }
+        }
+    }
+
+    // Method to extend the node's row by character c and walk the child [lo, hi) if it can still fit the query
+    private void child(String key, int maxEdits, int depth, int lo, int hi, int[] parent, int[] row, int last, int c, List<List<int[]>> hits) {
+        int m = key.length();
+        int[] next = new int[m + 1];
+        next[0] = row[0] + 1;
+        int best = next[0];
+        for (int j = 1; j <= m; j++) {
+            int cost = key.charAt(j - 1) == c ? 0 : 1;
+            next[j] = Math.min(Math.min(row[j] + 1, next[j - 1] + 1), row[j - 1] + cost);
+            if (j > 1 && parent != null && key.charAt(j - 2) == c && key.charAt(j - 1) == last) {
+                next[j] = Math.min(next[j], parent[j - 2] + 1);
+            }
+            // The child may also be the first half of a swap that completes one level further down
+            if (j > 1 && key.charAt(j - 1) == c) {
+                best = Math.min(best, row[j - 2] + 1);
+            }
+            best = Math.min(best, next[j]);
+        }
+        if (best <= maxEdits) {
+            walk(key, maxEdits, depth + 1, lo, hi, row, next, c, hits);
+        }
+    }
+
+    // Method to get character depth of suffix i, or END past the end of its name
+    private int charAt(int i, int depth) {
+        if (depth < HEAD_CHARS) {
+            return (int) (heads[i] >>> (HEAD_CHARS - 1 - depth) * HEAD_BITS & (1 << HEAD_BITS) - 1) - 1;
+        }
+        int position = suffixes[i] + depth;
+        return position < placeStart[suffixPlace[i] + 1] ? text[position] : END;
+    }
+
+    // Method to find the first suffix in [lo, hi) whose character at depth is not below c
+    private int lowerBound(int c, int depth, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (charAt(mid, depth) < c) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Method to find the first suffix in [lo, hi) whose character at depth is above c. It gallops from lo,
+    // so stepping through the children of a wide node costs the log of each child's size, not the node's
+    private int upperBound(int c, int depth, int lo, int hi) {
+        int step = 1;
+        while (lo + step < hi && charAt(lo + step, depth) <= c) {
+            lo += step;
+            step <<= 1;
+        }
+        hi = Math.min(hi, lo + step);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (charAt(mid, depth) <= c) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Method to find the first suffix not below key
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = suffixes.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(suffixes[mid], placeStart[suffixPlace[mid] + 1], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Method to find the first name not below key
+    private int lowerBoundPlace(String key) {
+        int lo = 0;
+        int hi = displayNames.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(placeStart[mid], placeStart[mid + 1], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Method to find the name equal to key, or -1
+    private int find(String key) {
+        int place = lowerBoundPlace(key);
+        return place < displayNames.length && compare(placeStart[place], placeStart[place + 1], key) == 0 ? place : -1;
+    }
+
+    private boolean startsWith(int start, int end, String key) {
+        if (end - start < key.length()) {
+            return false;
+        }
+        for (int j = 0; j < key.length(); j++) {
+            if (text[start + j] != key.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Method to compare the text in [start, end) with key
+    private int compare(int start, int end, String key) {
+        int length = Math.min(end - start, key.length());
+        for (int j = 0; j < length; j++) {
+            if (text[start + j] != key.charAt(j)) {
+                return Character.compare(text[start + j], key.charAt(j));
+            }
+        }
+        return Integer.compare(end - start, key.length());
+    }
+
+    private List<String> cities(int place) {
+        List<String> names = new ArrayList<>(cityOffsets[place + 1] - cityOffsets[place]);
+        for (int i = cityOffsets[place]; i < cityOffsets[place + 1]; i++) {
+            names.add(graph.name(cityIds[i]));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,157 @@
+package pdsa;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+// Class caching query results by their normalized parameters, with least-recently-used eviction.
+// Keys are spread over segments, each an access-ordered LinkedHashMap behind its own lock, so
+// queries for different pairs rarely contend, and the query itself runs outside any lock.
+// Every entry remembers the graph version it was computed on; a lookup for another version is
+// a miss that replaces it, so updates never need to walk the cache.
+class QueryCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long maxSegmentWeight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    // Constructor taking the total weight the cache may hold; 0 disables caching. Any positive weight
+    // gives every segment room for at least one unit, so a small cache still caches.
+    QueryCache(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Cache weight must not be negative: " + maxWeight);
+        }
+        this.maxSegmentWeight = maxWeight == 0 ? 0 : Math.max(1, maxWeight / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    // Class representing a cached result with the graph version it belongs to
+    private static class Entry {
+        final Object value;
+        final long version;
+        final int weight;
+
+        Entry(Object value, long version, int weight) {
+            this.value = value;
+            this.version = version;
+            this.weight = weight;
+        }
+    }
+
+    // Class representing one independently locked part of the cache
+    private static class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+    }
+
+    // Method to return the cached result for key on the given version, running the query on a miss
+    @SuppressWarnings("unchecked")
+    <V> V get(Object key, long version, ToIntFunction<V> weigher, Supplier<V> query) {
+        if (maxSegmentWeight == 0) {
+            misses.increment();
+            return query.get();
+        }
+        Segment segment = segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+        segment.lock.lock();
+        try {
+            Entry entry = segment.entries.get(key);
+            if (entry != null && entry.version == version) {
+                hits.increment();
+                return (V) entry.value;
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+
+        misses.increment();
+        V value = query.get();
+        int weight = 1 + weigher.applyAsInt(value);
+        if (weight > maxSegmentWeight) {
+            return value;    // Larger than a whole segment, caching it would only flush everything else
+        }
+        segment.lock.lock();
+        try {
+            Entry existing = segment.entries.get(key);
+            if (existing != null) {
+                if (existing.version > version) {
+                    return value;    // A newer version got there first, keep it
+                }
+                segment.entries.remove(key);
+                segment.weight -= existing.weight;
+                if (existing.version < version) {
+                    invalidations.increment();
+                }
+            }
+            segment.entries.put(key, new Entry(value, version, weight));
+            segment.weight += weight;
+            Iterator<Entry> eldest = segment.entries.values().iterator();
+            while (segment.weight > maxSegmentWeight) {
+                segment.weight -= eldest.next().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        return value;
+    }
+
+    // Method to drop every entry
+    void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.entries.clear();
+                segment.weight = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    // Method to get the number of entries replaced because the graph changed since they were computed
+    long invalidations() {
+        return invalidations.sum();
+    }
+
+    // Method to get the number of cached entries
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache[hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions()
+                + ", invalidations=" + invalidations() + ", size=" + size() + "]";
+    }
+}
@@ -0,0 +1,300 @@
+package pdsa;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Class collecting per-query metrics for the Graph query methods: a latency histogram, and the work
+// the searches did (nodes settled, edges relaxed, peak queue size, DFS nodes expanded, paths emitted).
+// Metrics are switched on with -Dpdsa.metrics=true. ENABLED is a static final constant, so with
+// metrics off the JIT drops every recording branch and the searches run exactly as before.
+// A query's work is charged to the Stats bound to the thread running it; parallel parts of a
+// query bind the caller's Stats on their worker threads, and counts are added once per search.
+// A query started inside another one binds its own Stats until it finishes, then the outer binding
+// is restored, so the rest of the outer query's work is still charged to the outer query.
+class QueryMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("pdsa.metrics");
+
+    // Enum listing the instrumented query methods
+    enum Query {
+        SHORTEST_PATH("shortestPath"),
+        PATH_AVOIDING_NODES("pathAvoidingNodes"),
+        PARETO_ROUTES("paretoRoutes"),
+        SHORTEST_PATH_DEPARTING("shortestPathDepartingAt"),
+        BEST_DEPARTURES("bestDepartures"),
+        MIN_STOPS("findPathWithMinStops"),
+        K_SHORTEST_PATHS("kShortestPaths"),
+        ALL_PATHS("findAllPaths"),
+        PATHS_MAX_DISTANCE("findPathsMaxDistance"),
+        STREAM_ALL_PATHS("streamAllPaths"),
+        STREAM_PATHS_MAX_DISTANCE("streamPathsMaxDistance"),
+        INTEREST_POINTS("pathThroughInterestPoints"),
+        INTEREST_POINTS_ANY_ORDER("pathThroughInterestPointsAnyOrder"),
+        DISTANCE_MATRIX("distanceMatrix");
+
+        final String method;
+
+        Query(String method) {
+            this.method = method;
+        }
+    }
+
+    private static final Stats[] STATS = new Stats[Query.values().length];
+    private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+    static {
+        for (Query query : Query.values()) {
+            STATS[query.ordinal()] = new Stats(query);
+        }
+        if (ENABLED) {
+            registerMBeans();
+        }
+    }
+
+    // Class holding the live counters of one query method; also its JMX view
+    static class Stats implements QueryStatsMXBean {
+        final Query query;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder nodesSettled = new LongAdder();
+        final LongAdder edgesRelaxed = new LongAdder();
+        final LongAccumulator queuePeak = new LongAccumulator(Math::max, 0);
+        final LongAdder dfsNodesExpanded = new LongAdder();
+        final LongAdder pathsEmitted = new LongAdder();
+
+        Stats(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        public long getCalls() {
+            return latency.count();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return latency.mean() / 1e3;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return latency.percentile(0.5) / 1e3;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return latency.percentile(0.99) / 1e3;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return latency.percentile(0.999) / 1e3;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return latency.max() / 1e3;
+        }
+
+        @Override
+        public long getNodesSettled() {
+            return nodesSettled.sum();
+        }
+
+        @Override
+        public long getEdgesRelaxed() {
+            return edgesRelaxed.sum();
+        }
+
+        @Override
+        public long getQueuePeak() {
+            return queuePeak.get();
+        }
+
+        @Override
+        public long getDfsNodesExpanded() {
+            return dfsNodesExpanded.sum();
+        }
+
+        @Override
+        public long getPathsEmitted() {
+            return pathsEmitted.sum();
+        }
+
+        @Override
+        public void reset() {
+            latency.reset();
+            nodesSettled.reset();
+            edgesRelaxed.reset();
+            queuePeak.reset();
+            dfsNodesExpanded.reset();
+            pathsEmitted.reset();
+        }
+    }
+
+    // Class representing the metrics of one query method at one moment
+    static class Snapshot {
+        final String query;
+        final long calls;
+        final double meanMicros;
+        final double p50Micros;
+        final double p99Micros;
+        final double p999Micros;
+        final double maxMicros;
+        final long nodesSettled;
+        final long edgesRelaxed;
+        final long queuePeak;
+        final long dfsNodesExpanded;
+        final long pathsEmitted;
+
+        Snapshot(Stats stats) {
+            this.query = stats.query.method;
+            this.calls = stats.getCalls();
+            this.meanMicros = stats.getMeanMicros();
+            this.p50Micros = stats.getP50Micros();
+            this.p99Micros = stats.getP99Micros();
+            this.p999Micros = stats.getP999Micros();
+            this.maxMicros = stats.getMaxMicros();
+            this.nodesSettled = stats.getNodesSettled();
+            this.edgesRelaxed = stats.getEdgesRelaxed();
+            this.queuePeak = stats.getQueuePeak();
+            this.dfsNodesExpanded = stats.getDfsNodesExpanded();
+            this.pathsEmitted = stats.getPathsEmitted();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-34s calls=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus"
+                            + " settled=%d relaxed=%d queuePeak=%d expanded=%d emitted=%d",
+                    query, calls, meanMicros, p50Micros, p99Micros, p999Micros, maxMicros,
+                    nodesSettled, edgesRelaxed, queuePeak, dfsNodesExpanded, pathsEmitted);
+        }
+    }
+
+    // Method to get the metrics of every query method that has been called
+    static List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (Stats stats : STATS) {
+            if (stats.getCalls() > 0) {
+                snapshots.add(new Snapshot(stats));
+            }
+        }
+        return snapshots;
+    }
+
+    static Stats stats(Query query) {
+        return STATS[query.ordinal()];
+    }
+
+    static void reset() {
+        for (Stats stats : STATS) {
+            stats.reset();
+        }
+    }
+
+    // Method to register one MXBean per query method with the platform MBean server
+    static void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Stats stats : STATS) {
+            try {
+                ObjectName name = new ObjectName("pdsa:type=QueryMetrics,query=" + stats.query.method);
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(stats, name);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("Could not register query metrics for " + stats.query.method, e);
+            }
+        }
+    }
+
+    // Class representing one timed query: its Stats, the binding it replaced and when it started
+    static class Timer {
+        final Stats stats;
+        final Stats previous;
+        final long started;
+
+        Timer(Stats stats, Stats previous, long started) {
+            this.stats = stats;
+            this.previous = previous;
+            this.started = started;
+        }
+    }
+
+    // Method to start timing a query on the calling thread; returns its timer, or null when disabled
+    static Timer start(Query query) {
+        if (!ENABLED) {
+            return null;
+        }
+        Stats stats = STATS[query.ordinal()];
+        Timer timer = new Timer(stats, CURRENT.get(), System.nanoTime());
+        CURRENT.set(stats);
+        return timer;
+    }
+
+    // Method to finish timing a query started on the calling thread, restoring the binding it replaced
+    static void finish(Timer timer) {
+        if (timer == null) {
+            return;
+        }
+        timer.stats.latency.record(System.nanoTime() - timer.started);
+        unbind(timer.previous);
+    }
+
+    // Method to finish timing a query whose answer is a lazy stream: its work is charged through the Stats the
+    // stream captured when it was created, and its latency runs until the stream is closed, wherever that happens
+    static <T> Stream<T> finishOnClose(Timer timer, Stream<T> stream) {
+        if (timer == null) {
+            return stream;
+        }
+        unbind(timer.previous);
+        return stream.onClose(() -> timer.stats.latency.record(System.nanoTime() - timer.started));
+    }
+
+    // Method to get the Stats the calling thread is working for, to hand to parallel workers; null when disabled
+    static Stats current() {
+        return ENABLED ? CURRENT.get() : null;
+    }
+
+    // Method to make a worker thread charge its searches to stats; returns the binding to restore afterwards
+    static Stats bind(Stats stats) {
+        if (!ENABLED) {
+            return null;
+        }
+        Stats previous = CURRENT.get();
+        CURRENT.set(stats);
+        return previous;
+    }
+
+    static void unbind(Stats previous) {
+        if (!ENABLED) {
+            return;
+        }
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    // Method to add the work of one finished Dijkstra or BFS search to the current query
+    static void search(int settled, long relaxed, int queuePeak) {
+        Stats stats = CURRENT.get();
+        if (stats != null) {
+            stats.nodesSettled.add(settled);
+            stats.edgesRelaxed.add(relaxed);
+            stats.queuePeak.accumulate(queuePeak);
+        }
+    }
+
+    // Method to add work done by a path enumeration to the Stats it was started for
+    static void enumeration(Stats stats, long expanded, long emitted) {
+        if (stats != null) {
+            stats.dfsNodesExpanded.add(expanded);
+            stats.pathsEmitted.add(emitted);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package pdsa;
+
+// Interface exposing the metrics of one Graph query method over JMX, as pdsa:type=QueryMetrics,query=<name>.
+// It has to be public for the platform MBean server; times are in microseconds.
+public interface QueryStatsMXBean {
+    long getCalls();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    long getNodesSettled();
+
+    long getEdgesRelaxed();
+
+    long getQueuePeak();
+
+    long getDfsNodesExpanded();
+
+    long getPathsEmitted();
+
+    void reset();
+}
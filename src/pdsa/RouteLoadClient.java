@@ -0,0 +1,131 @@
+package pdsa;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Class generating load against a RouteServer to measure its throughput and latency.
+// A fixed number of virtual threads each send one request at a time for the given duration
+// (a closed loop), picking random city pairs and a random operation out of the mix below;
+// at the end it prints requests per second, the latency percentiles and the status codes seen.
+//
+//   java pdsa.RouteLoadClient [url] [concurrency] [seconds] [city,city,...]
+//
+// Without a city list the cities are taken from the server's /places answer.
+class RouteLoadClient {
+    private static final String[] OPERATIONS = {"shortest", "shortest", "shortest", "minstops", "avoid", "through", "within", "paths"};
+
+    private final HttpClient client;
+    private final URI base;
+    private final List<String> cities;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+
+    RouteLoadClient(URI base, List<String> cities) {
+        this.base = base;
+        this.cities = cities;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    // Method to run concurrency workers for the given time and print what they measured
+    void run(int concurrency, Duration duration) throws InterruptedException {
+        long started = System.nanoTime();
+        long end = started + duration.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        send(request());
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long requests = latency.count();
+        System.out.printf(Locale.ROOT, "%d requests in %.1fs with %d workers: %.0f requests/s%n",
+                requests, seconds, concurrency, requests / seconds);
+        System.out.printf(Locale.ROOT, "latency mean=%.2fms p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                latency.mean() / 1e6, latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6,
+                latency.percentile(0.999) / 1e6, latency.max() / 1e6);
+        System.out.println("status codes " + new TreeMap<>(statuses) + ", connection failures " + failures.sum());
+    }
+
+    private void send(HttpRequest request) {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            latency.record(System.nanoTime() - started);
+            statuses.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+        } catch (IOException e) {
+            failures.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Method to build one random request out of the operation mix
+    private HttpRequest request() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String operation = OPERATIONS[random.nextInt(OPERATIONS.length)];
+        String query = "from=" + encode(city(random)) + "&to=" + encode(city(random));
+        switch (operation) {
+            case "avoid": query += "&avoid=" + encode(city(random)); break;
+            case "through": query += "&via=" + encode(city(random) + "," + city(random)); break;
+            case "within": query += "&max=" + (50 + random.nextInt(200)) + "&limit=100"; break;
+            case "paths": query += "&limit=100"; break;
+            default: break;
+        }
+        return HttpRequest.newBuilder(base.resolve("/" + operation + "?" + query)).GET().build();
+    }
+
+    private String city(ThreadLocalRandom random) {
+        return cities.get(random.nextInt(cities.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // Method to read the city names out of the server's /places answer
+    static List<String> fetchCities(URI base) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/places")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<String> cities = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\":\\[").matcher(response.body());
+        while (matcher.find()) {
+            cities.add(matcher.group(1));
+        }
+        return cities;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        URI base = URI.create(args.length > 0 ? args[0] : "http://localhost:" + RouteServer.DEFAULT_PORT);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        List<String> cities = args.length > 3 ? Arrays.asList(args[3].split(",")) : fetchCities(base);
+        if (cities.isEmpty()) {
+            System.out.println("No cities to query; pass them as a comma-separated list.");
+            return;
+        }
+        new RouteLoadClient(base, cities).run(concurrency, Duration.ofSeconds(seconds));
+    }
+}
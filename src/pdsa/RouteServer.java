@@ -0,0 +1,363 @@
+package pdsa;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+// Class serving the seven menu operations of the travel planner over HTTP, answering in JSON.
+// Every request is received on its own virtual thread and all handlers share one Graph, which is
+// safe because queries only read its published snapshot. A request gets a deadline (the server's,
+// or a shorter timeoutMs parameter); it waits for one of a fixed number of permits until then and
+// is refused with 503 if none frees up. Its query then runs on a fixed pool of platform threads,
+// one per permit, so the searches' per-thread scratch arrays exist once per permit rather than
+// once per request. Searches check the deadline as they go and give up once it passes, and the
+// request gets 504 when its answer is not ready in time. Path enumerations stop at the deadline or
+// result limit instead and report that they were truncated.
+//
+//   GET /places                                      places of interest per city
+//   GET /paths?from=A&to=B[&limit=N]                 all paths
+//   GET /shortest?from=A&to=B                        shortest path
+//   GET /through?from=A&to=B&via=C,D[&anyOrder=true] path through interest points
+//   GET /within?from=A&to=B&max=D[&limit=N]          paths with a maximum distance
+//   GET /minstops?from=A&to=B                        path with the fewest stops
+//   GET /avoid?from=A&to=B&avoid=C,D                 path avoiding cities
+//   GET /pareto?from=A&to=B[&avoid=C,D][&max=D]      every best trade-off between distance and stops
+//   GET /suggest?q=text[&limit=N]                   places of interest completing text, typos allowed
+//   GET /metrics                                     query metrics (with -Dpdsa.metrics=true)
+class RouteServer {
+    static final int DEFAULT_PORT = 8080;
+    static final long DEFAULT_DEADLINE_MILLIS = 2000;
+    static final int DEFAULT_PATH_LIMIT = 1000;
+
+    private final Graph graph;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService queries;    // maxConcurrent platform threads; a query only runs while holding a permit
+    private final Semaphore permits;
+    private final long deadlineMillis;
+    private volatile PlaceIndex places;    // Rebuilt when the graph changes
+
+    // Interface for one operation: turns the request parameters into a JSON body
+    private interface Operation {
+        String answer(Map<String, String> parameters, long deadline);
+    }
+
+    // Constructor binding the server; maxConcurrent limits the queries computed at the same time
+    RouteServer(Graph graph, InetSocketAddress address, int maxConcurrent, long deadlineMillis) throws IOException {
+        this.graph = graph;
+        this.permits = new Semaphore(maxConcurrent);
+        this.queries = Executors.newFixedThreadPool(maxConcurrent);
+        this.deadlineMillis = deadlineMillis;
+        this.server = HttpServer.create(address, 1024);
+        server.setExecutor(executor);
+        route("/places", this::places);
+        route("/paths", this::allPaths);
+        route("/shortest", this::shortestPath);
+        route("/through", this::throughInterestPoints);
+        route("/within", this::pathsWithin);
+        route("/minstops", this::minStops);
+        route("/avoid", this::avoiding);
+        route("/pareto", this::pareto);
+        route("/suggest", this::suggest);
+        route("/metrics", (parameters, deadline) -> metrics());
+    }
+
+    void start() {
+        server.start();
+    }
+
+    // Method to stop accepting requests and give running ones up to delaySeconds to finish
+    void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        queries.shutdown();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Method to register an operation with admission control, deadline and error handling around it
+    private void route(String path, Operation operation) {
+        server.createContext(path, exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    send(exchange, 405, error("Only GET is supported"));
+                    return;
+                }
+                Map<String, String> parameters = parameters(exchange.getRequestURI().getRawQuery());
+                long timeout = deadlineMillis;
+                if (parameters.containsKey("timeoutMs")) {
+                    timeout = Math.min(timeout, Math.max(1, number(parameters, "timeoutMs")));
+                }
+                long deadline = System.nanoTime() + timeout * 1_000_000L;
+                if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    send(exchange, 503, error("Server busy"));
+                    return;
+                }
+                String body = answer(operation, parameters, deadline);
+                if (body == null || System.nanoTime() - deadline > 0) {
+                    send(exchange, 504, error("Deadline exceeded"));
+                } else {
+                    send(exchange, 200, body);
+                }
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, error(e.getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                send(exchange, 503, error("Server shutting down"));
+            } catch (RuntimeException e) {
+                send(exchange, 500, error("Internal error: " + e));
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    // Method to run an operation on the query pool, holding an acquired permit until it ends; null if the
+    // answer is not ready by the deadline. The query itself stops at its next deadline check.
+    private String answer(Operation operation, Map<String, String> parameters, long deadline) throws InterruptedException {
+        Future<String> answer;
+        try {
+            answer = queries.submit(() -> {
+                Deadline previous = Deadline.bind(new Deadline(deadline));
+                try {
+                    return operation.answer(parameters, deadline);
+                } finally {
+                    Deadline.unbind(previous);
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw new InterruptedException("Server shutting down");
+        }
+        try {
+            return answer.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Deadline.Exceeded) {
+                return null;
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Query failed", e.getCause());
+        }
+    }
+
+    private String places(Map<String, String> parameters, long deadline) {
+        StringBuilder json = new StringBuilder("{\"places\":{");
+        Map<String, List<String>> places = new TreeMap<>(graph.snapshot().placesOfInterest);
+        for (Map.Entry<String, List<String>> entry : places.entrySet()) {
+            if (json.charAt(json.length() - 1) != '{') json.append(',');
+            json.append(quote(entry.getKey())).append(':').append(strings(entry.getValue()));
+        }
+        return json.append("}}").toString();
+    }
+
+    private String allPaths(Map<String, String> parameters, long deadline) {
+        PathEnumerator.Control control = control(parameters, deadline);
+        try (var stream = graph.streamAllPaths(required(parameters, "from"), required(parameters, "to"), control, false)) {
+            return paths(stream.collect(Collectors.toList()), control);
+        }
+    }
+
+    private String shortestPath(Map<String, String> parameters, long deadline) {
+        return path(graph.shortestPath(required(parameters, "from"), required(parameters, "to")));
+    }
+
+    private String throughInterestPoints(Map<String, String> parameters, long deadline) {
+        List<String> via = list(required(parameters, "via"));
+        String from = required(parameters, "from");
+        String to = required(parameters, "to");
+        return path(Boolean.parseBoolean(parameters.get("anyOrder"))
+                ? graph.pathThroughInterestPointsAnyOrder(from, via, to)
+                : graph.pathThroughInterestPoints(from, via, to));
+    }
+
+    private String pathsWithin(Map<String, String> parameters, long deadline) {
+        PathEnumerator.Control control = control(parameters, deadline);
+        int maxDistance = (int) Math.min(Integer.MAX_VALUE, number(parameters, "max"));
+        try (var stream = graph.streamPathsMaxDistance(required(parameters, "from"), required(parameters, "to"), maxDistance, control, false)) {
+            return paths(stream.collect(Collectors.toList()), control);
+        }
+    }
+
+    private String minStops(Map<String, String> parameters, long deadline) {
+        Graph.PathWithStops result = graph.findPathWithMinStops(required(parameters, "from"), required(parameters, "to"));
+        boolean found = result.stops < Integer.MAX_VALUE;
+        return "{\"found\":" + found + ",\"path\":" + strings(result.path) + ",\"stops\":" + (found ? result.stops : -1) + "}";
+    }
+
+    private String avoiding(Map<String, String> parameters, long deadline) {
+        Set<String> avoid = new HashSet<>(list(required(parameters, "avoid")));
+        return path(graph.pathAvoidingNodes(required(parameters, "from"), required(parameters, "to"), avoid));
+    }
+
+    private String pareto(Map<String, String> parameters, long deadline) {
+        Set<String> avoid = parameters.containsKey("avoid") ? new HashSet<>(list(parameters.get("avoid"))) : Collections.emptySet();
+        int maxDistance = parameters.containsKey("max") ? (int) Math.min(Integer.MAX_VALUE, number(parameters, "max")) : Integer.MAX_VALUE;
+        List<Graph.PathWithDistance> routes = graph.paretoRoutes(required(parameters, "from"), required(parameters, "to"), avoid, maxDistance);
+        StringBuilder json = new StringBuilder("{\"routes\":[");
+        for (int i = 0; i < routes.size(); i++) {
+            Graph.PathWithDistance route = routes.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"path\":").append(strings(route.path)).append(",\"distance\":").append(route.distance)
+                    .append(",\"stops\":").append(route.path.size() - 1).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String suggest(Map<String, String> parameters, long deadline) {
+        PlaceIndex index = places;
+        if (index == null || !index.isCurrent(graph)) {
+            places = index = PlaceIndex.of(graph);
+        }
+        String query = required(parameters, "q");
+        int limit = parameters.containsKey("limit") ? (int) Math.max(1, Math.min(100, number(parameters, "limit"))) : 10;
+        StringBuilder json = new StringBuilder("{\"matches\":[");
+        for (PlaceIndex.Match match : index.search(query, limit)) {
+            if (json.charAt(json.length() - 1) != '[') json.append(',');
+            json.append("{\"place\":").append(quote(match.place)).append(",\"cities\":").append(strings(match.cities))
+                    .append(",\"edits\":").append(match.edits).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String metrics() {
+        StringBuilder json = new StringBuilder("{\"enabled\":" + QueryMetrics.ENABLED + ",\"queries\":[");
+        for (QueryMetrics.Snapshot snapshot : QueryMetrics.snapshot()) {
+            if (json.charAt(json.length() - 1) != '[') json.append(',');
+            json.append(String.format(Locale.ROOT, "{\"query\":%s,\"calls\":%d,\"meanMicros\":%.1f,\"p50Micros\":%.1f,\"p99Micros\":%.1f,"
+                            + "\"p999Micros\":%.1f,\"maxMicros\":%.1f,\"nodesSettled\":%d,\"edgesRelaxed\":%d,\"queuePeak\":%d,"
+                            + "\"dfsNodesExpanded\":%d,\"pathsEmitted\":%d}",
+                    quote(snapshot.query), snapshot.calls, snapshot.meanMicros, snapshot.p50Micros, snapshot.p99Micros,
+                    snapshot.p999Micros, snapshot.maxMicros, snapshot.nodesSettled, snapshot.edgesRelaxed, snapshot.queuePeak,
+                    snapshot.dfsNodesExpanded, snapshot.pathsEmitted));
+        }
+        return json.append("]}").toString();
+    }
+
+    // Method to bound a path enumeration by the limit parameter and the time left before the deadline
+    private static PathEnumerator.Control control(Map<String, String> parameters, long deadline) {
+        long limit = parameters.containsKey("limit") ? Math.max(0, number(parameters, "limit")) : DEFAULT_PATH_LIMIT;
+        long remaining = Math.max(1, (deadline - System.nanoTime()) / 1_000_000L);
+        return new PathEnumerator.Control(limit, remaining);
+    }
+
+    private static String path(Graph.PathWithDistance result) {
+        return "{\"found\":" + !result.path.isEmpty() + ",\"path\":" + strings(result.path) + ",\"distance\":" + result.distance + "}";
+    }
+
+    // Method to write enumerated paths; must run before the stream is closed, since closing cancels the control
+    private static String paths(List<Graph.PathWithDistance> paths, PathEnumerator.Control control) {
+        StringBuilder json = new StringBuilder("{\"truncated\":" + control.isCancelled() + ",\"paths\":[");
+        for (int i = 0; i < paths.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"path\":").append(strings(paths.get(i).path)).append(",\"distance\":").append(paths.get(i).distance).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String strings(List<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(quote(values.get(i)));
+        }
+        return json.append(']').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(String.valueOf(message)) + "}";
+    }
+
+    // Method to write a string as a JSON string literal
+    static String quote(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    private static long number(Map<String, String> parameters, String name) {
+        String value = required(parameters, name);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value);
+        }
+    }
+
+    // Method to split a comma-separated parameter into trimmed names, like the menu does
+    private static List<String> list(String value) {
+        List<String> names = new ArrayList<>();
+        for (String name : value.split(",")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
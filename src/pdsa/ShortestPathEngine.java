@@ -0,0 +1,250 @@
+package pdsa;
+
+import java.util.*;
+
+// Class running Dijkstra over a CsrGraph with lazy decrease-key and early termination.
+// Only the start node is queued up front, stale heap entries are skipped, and the search
+// stops once the target is settled. Distances live in per-thread versioned scratch arrays,
+// so a query allocates nothing but its result.
+class ShortestPathEngine {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final CsrGraph graph;
+
+    ShortestPathEngine(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    // Class holding reusable search state; an entry is only valid while its stamp equals the current epoch
+    static class Scratch {
+        int[] distances = new int[0];
+        int[] previousNodes = new int[0];
+        int[] stamps = new int[0];
+        int[] targetMarks = new int[0];    // Targets of a many-target search carry the current epoch
+        int epoch;
+        int settled;                       // Nodes settled by the last search, to compare search strategies
+        final LongMinHeap heap = new LongMinHeap();
+
+        // Method to start a new search over a graph with the given number of nodes
+        void reset(int nodeCount) {
+            if (stamps.length < nodeCount) {
+                distances = new int[nodeCount];
+                previousNodes = new int[nodeCount];
+                stamps = new int[nodeCount];
+                targetMarks = new int[nodeCount];
+                epoch = 0;
+            }
+            if (++epoch == 0) {
+                Arrays.fill(stamps, 0);
+                Arrays.fill(targetMarks, 0);
+                epoch = 1;
+            }
+            heap.clear();
+            settled = 0;
+        }
+
+        int distance(int node) {
+            return stamps[node] == epoch ? distances[node] : UNREACHABLE;
+        }
+
+        void set(int node, int distance, int previous) {
+            distances[node] = distance;
+            previousNodes[node] = previous;
+            stamps[node] = epoch;
+        }
+    }
+
+    // Method to get the calling thread's scratch, for other searches that keep their labels the same way.
+    // They share it with this engine, so they must not run one of its searches while using it.
+    static Scratch scratch() {
+        return SCRATCH.get();
+    }
+
+    // Method to get the number of nodes settled by the last search on the calling thread
+    static int lastSettled() {
+        return SCRATCH.get().settled;
+    }
+
+    // Method to find the shortest path from start to end, skipping blocked nodes (blocked may be null)
+    Graph.PathWithDistance shortestPath(int start, int end, boolean[] blocked) {
+        Scratch scratch = SCRATCH.get();
+        if (end < 0 || !search(scratch, start, end, blocked, null)) {
+            return new Graph.PathWithDistance(Collections.emptyList(), 0); // Return empty path with 0 distance if no path is found
+        }
+        return new Graph.PathWithDistance(path(scratch, end), scratch.distance(end));
+    }
+
+    // Class representing a path as node ids, with the distance from its first node to each of them
+    static class NodePath {
+        final int[] nodes;
+        final int[] distances;
+
+        NodePath(int[] nodes, int[] distances) {
+            this.nodes = nodes;
+            this.distances = distances;
+        }
+
+        int distance() {
+            return distances[distances.length - 1];
+        }
+    }
+
+    // Method to find the shortest path as node ids, skipping blocked nodes and blocked edge slots; null if there is none
+    NodePath nodePath(int start, int end, boolean[] blockedNodes, BitSet blockedEdges) {
+        Scratch scratch = SCRATCH.get();
+        if (end < 0 || !search(scratch, start, end, blockedNodes, blockedEdges)) {
+            return null;
+        }
+        int length = 0;
+        for (int node = end; node != -1; node = scratch.previousNodes[node]) {
+            length++;
+        }
+        int[] nodes = new int[length];
+        int[] distances = new int[length];
+        for (int node = end, i = length - 1; node != -1; node = scratch.previousNodes[node], i--) {
+            nodes[i] = node;
+            distances[i] = scratch.distance(node);
+        }
+        return new NodePath(nodes, distances);
+    }
+
+    // Method to compute the distance from source to every node, UNREACHABLE where there is no path
+    int[] distancesFrom(int source, boolean[] blocked) {
+        int[] distances = new int[graph.nodeCount()];
+        Arrays.fill(distances, UNREACHABLE);
+        if (source < 0 || (blocked != null && blocked[source])) {
+            return distances;
+        }
+        Scratch scratch = SCRATCH.get();
+        search(scratch, source, -1, blocked, null);
+        for (int node = 0; node < distances.length; node++) {
+            distances[node] = scratch.distance(node);
+        }
+        return distances;
+    }
+
+    // Method to write the shortest-path tree of source into distances[offset ..] and parents[offset ..], one entry
+    // per node: its distance (UNREACHABLE if none) and the node before it on the path (-1 for source and unreachable)
+    void shortestPathTree(int source, int[] distances, int[] parents, int offset) {
+        Scratch scratch = SCRATCH.get();
+        search(scratch, source, -1, null, null);
+        for (int node = 0, count = graph.nodeCount(); node < count; node++) {
+            int distance = scratch.distance(node);
+            distances[offset + node] = distance;
+            parents[offset + node] = distance == UNREACHABLE ? -1 : scratch.previousNodes[node];
+        }
+    }
+
+    // Method to write the distances from source to each target into row[offset ..], stopping once all targets are settled
+    void distancesTo(int source, int[] targets, int[] row, int offset) {
+        Arrays.fill(row, offset, offset + targets.length, UNREACHABLE);
+        if (source < 0) {
+            return;
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(graph.nodeCount());
+        int pending = 0;
+        for (int target : targets) {
+            if (target >= 0 && scratch.targetMarks[target] != scratch.epoch) {
+                scratch.targetMarks[target] = scratch.epoch;
+                pending++;
+            }
+        }
+        LongMinHeap heap = scratch.heap;
+        scratch.set(source, 0, -1);
+        heap.push(LongMinHeap.pack(0, source));
+
+        long relaxed = 0;
+        Deadline deadline = Deadline.current();
+        while (pending > 0 && !heap.isEmpty()) {
+            long key = heap.pop();
+            int current = LongMinHeap.node(key);
+            int distance = LongMinHeap.distance(key);
+            if (distance > scratch.distance(current)) {
+                continue;
+            }
+            scratch.settled++;
+            Deadline.check(deadline, scratch.settled);
+            if (scratch.targetMarks[current] == scratch.epoch) {
+                pending--;
+            }
+            for (int edge = graph.edgeStart(current), last = graph.edgeEnd(current); edge < last; edge++) {
+                int neighbor = graph.target(edge);
+                long newDist = (long) distance + graph.weight(edge);
+                relaxed++;
+                if (newDist < scratch.distance(neighbor)) {
+                    scratch.set(neighbor, (int) newDist, current);
+                    heap.push(LongMinHeap.pack((int) newDist, neighbor));
+                }
+            }
+        }
+        if (QueryMetrics.ENABLED) {
+            QueryMetrics.search(scratch.settled, relaxed, heap.peak());
+        }
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] >= 0) {
+                row[offset + i] = scratch.distance(targets[i]);
+            }
+        }
+    }
+
+    // Method to run the search; returns true if end was reached. An end of -1 settles every reachable node.
+    private boolean search(Scratch scratch, int start, int end, boolean[] blocked, BitSet blockedEdges) {
+        if (start < 0 || (blocked != null && (blocked[start] || (end >= 0 && blocked[end])))) {
+            return false;
+        }
+        scratch.reset(graph.nodeCount());
+        LongMinHeap heap = scratch.heap;
+        scratch.set(start, 0, -1);
+        heap.push(LongMinHeap.pack(0, start));
+
+        boolean found = false;
+        long relaxed = 0;
+        Deadline deadline = Deadline.current();
+        while (!heap.isEmpty()) {
+            long key = heap.pop();
+            int current = LongMinHeap.node(key);
+            int distance = LongMinHeap.distance(key);
+            if (distance > scratch.distance(current)) {
+                continue;    // Stale entry, the node was settled with a smaller distance already
+            }
+            scratch.settled++;
+            Deadline.check(deadline, scratch.settled);
+            if (current == end) {
+                found = true;
+                break;
+            }
+            for (int edge = graph.edgeStart(current), last = graph.edgeEnd(current); edge < last; edge++) {
+                int neighbor = graph.target(edge);
+                if (blocked != null && blocked[neighbor]) continue;
+                if (blockedEdges != null && blockedEdges.get(edge)) continue;
+
+                long newDist = (long) distance + graph.weight(edge);
+                relaxed++;
+                if (newDist < scratch.distance(neighbor)) {
+                    scratch.set(neighbor, (int) newDist, current);
+                    heap.push(LongMinHeap.pack((int) newDist, neighbor));
+                }
+            }
+        }
+        if (QueryMetrics.ENABLED) {
+            QueryMetrics.search(scratch.settled, relaxed, heap.peak());
+        }
+        return found;
+    }
+
+    // Method to rebuild the path to a reached node by following the previous-node links
+    private List<String> path(Scratch scratch, int end) {
+        int length = 0;
+        for (int node = end; node != -1; node = scratch.previousNodes[node]) {
+            length++;
+        }
+        String[] path = new String[length];
+        for (int node = end, i = length - 1; node != -1; node = scratch.previousNodes[node], i--) {
+            path[i] = graph.name(node);
+        }
+        return Arrays.asList(path);
+    }
+}
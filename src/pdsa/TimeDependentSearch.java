@@ -0,0 +1,121 @@
+package pdsa;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Class routing over a CsrGraph whose edges may carry TimeProfiles, for a given departure minute.
+// Time-dependent Dijkstra: the label of a node is its earliest arrival minute, and an edge is traversed with
+// the travel time of its profile at the moment it is entered (its static weight when it has none). Profiles are
+// FIFO, so waiting never helps and the first arrival settled at a node is the earliest one. Arrivals live in
+// ShortestPathEngine's per-thread versioned scratch arrays, shared with its searches rather than kept twice.
+class TimeDependentSearch {
+    private static final int UNREACHABLE = ShortestPathEngine.UNREACHABLE;
+
+    private final CsrGraph graph;
+    private final TimeProfiles profiles;    // null when no edge has a profile
+
+    TimeDependentSearch(CsrGraph graph, TimeProfiles profiles) {
+        this.graph = graph;
+        this.profiles = profiles;
+    }
+
+    // Method to find the quickest path from start to end leaving at the given minute; its distance is the travel time in minutes
+    Graph.PathWithDistance fastestPath(int start, int end, int departure) {
+        ShortestPathEngine.Scratch scratch = ShortestPathEngine.scratch();
+        if (end < 0 || !search(scratch, start, end, departure)) {
+            return new Graph.PathWithDistance(new ArrayList<>(), 0);
+        }
+        List<String> path = new ArrayList<>();
+        for (int node = end; node != -1; node = scratch.previousNodes[node]) {
+            path.add(graph.name(node));
+        }
+        Collections.reverse(path);
+        return new Graph.PathWithDistance(path, scratch.distance(end) - departure);
+    }
+
+    // Method to find the departure minutes within [from, to] with the least travel time from start to end. Every
+    // minute of the window is searched, in parallel; runs of consecutive minutes that share the quickest path are
+    // returned as one Departure, earliest first. Empty when end cannot be reached.
+    List<Graph.Departure> bestDepartures(int start, int end, int from, int to) {
+        List<Graph.Departure> best = new ArrayList<>();
+        if (start < 0 || end < 0) {
+            return best;
+        }
+        int[] travelTimes = new int[to - from + 1];
+        QueryMetrics.Stats stats = QueryMetrics.current();    // Searches on worker threads count for the calling query
+        Deadline deadline = Deadline.current();               // and stop at its deadline
+        IntStream.range(0, travelTimes.length).parallel().forEach(i -> {
+            QueryMetrics.Stats bound = QueryMetrics.bind(stats);
+            Deadline previous = Deadline.bind(deadline);
+            try {
+                ShortestPathEngine.Scratch scratch = ShortestPathEngine.scratch();
+                travelTimes[i] = search(scratch, start, end, from + i) ? scratch.distance(end) - from - i : UNREACHABLE;
+            } finally {
+                Deadline.unbind(previous);
+                QueryMetrics.unbind(bound);
+            }
+        });
+        int quickest = Arrays.stream(travelTimes).min().getAsInt();
+        if (quickest == UNREACHABLE) {
+            return best;
+        }
+        Graph.Departure run = null;
+        for (int i = 0; i < travelTimes.length; i++) {
+            if (travelTimes[i] != quickest) {
+                run = null;
+                continue;
+            }
+            Graph.PathWithDistance path = fastestPath(start, end, from + i);
+            if (run != null && run.latest == from + i - 1 && run.path.equals(path.path)) {
+                run.latest = from + i;
+            } else {
+                run = new Graph.Departure(from + i, from + i, quickest, path.path);
+                best.add(run);
+            }
+        }
+        return best;
+    }
+
+    // Method to run the search from start leaving at departure; returns true if end was reached
+    private boolean search(ShortestPathEngine.Scratch scratch, int start, int end, int departure) {
+        if (start < 0) {
+            return false;
+        }
+        scratch.reset(graph.nodeCount());
+        LongMinHeap heap = scratch.heap;
+        scratch.set(start, departure, -1);
+        heap.push(LongMinHeap.pack(departure, start));
+
+        boolean found = false;
+        long relaxed = 0;
+        Deadline deadline = Deadline.current();
+        while (!heap.isEmpty()) {
+            long key = heap.pop();
+            int current = LongMinHeap.node(key);
+            int arrival = LongMinHeap.distance(key);
+            if (arrival > scratch.distance(current)) {
+                continue;    // Stale entry
+            }
+            scratch.settled++;
+            Deadline.check(deadline, scratch.settled);
+            if (current == end) {
+                found = true;
+                break;
+            }
+            for (int edge = graph.edgeStart(current), last = graph.edgeEnd(current); edge < last; edge++) {
+                int neighbor = graph.target(edge);
+                int travel = profiles == null ? graph.weight(edge) : profiles.travelTime(edge, arrival, graph.weight(edge));
+                long next = (long) arrival + travel;
+                relaxed++;
+                if (next < scratch.distance(neighbor)) {
+                    scratch.set(neighbor, (int) next, current);
+                    heap.push(LongMinHeap.pack((int) next, neighbor));
+                }
+            }
+        }
+        if (QueryMetrics.ENABLED) {
+            QueryMetrics.search(scratch.settled, relaxed, heap.peak());
+        }
+        return found;
+    }
+}
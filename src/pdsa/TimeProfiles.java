@@ -0,0 +1,166 @@
+package pdsa;
+
+import java.util.*;
+
+// Class storing piecewise-linear travel-time profiles for the edge slots of a CsrGraph in shared primitive arrays.
+// Times are whole minutes. A profile is a list of breakpoints (minute of the day, travel minutes) over a day
+// that repeats every DAY minutes: between two breakpoints the travel time changes linearly, and after the last
+// one it runs linearly into the first one of the next day. Each distinct profile is stored once, however many
+// edge slots use it, so a graph whose roads share a few rush-hour shapes costs one int per edge slot:
+//   edgeProfiles[edge]                 profile id of the slot, or -1 where its static weight is the travel time
+//   starts[profile] .. starts[profile + 1]   its breakpoints in departures[] and durations[]
+// Profiles must be FIFO (leaving later never arrives earlier), which holds when the travel time falls by at
+// most one minute per minute; time-dependent Dijkstra is only correct on such edges.
+class TimeProfiles {
+    static final int DAY = 24 * 60;
+
+    private final int[] edgeProfiles;
+    private final int[] starts;
+    private final int[] departures;    // Minute of the day of each breakpoint, increasing within a profile
+    private final int[] durations;     // Travel minutes of each breakpoint
+
+    private TimeProfiles(int[] edgeProfiles, int[] starts, int[] departures, int[] durations) {
+        this.edgeProfiles = edgeProfiles;
+        this.starts = starts;
+        this.departures = departures;
+        this.durations = durations;
+    }
+
+    // Method to get the travel minutes of an edge slot when entering it at the given minute (counted from day 0)
+    int travelTime(int edge, int time, int staticWeight) {
+        int profile = edgeProfiles[edge];
+        if (profile < 0) {
+            return staticWeight;
+        }
+        int first = starts[profile];
+        int last = starts[profile + 1] - 1;
+        int minute = time % DAY;
+        if (first == last) {
+            return durations[first];
+        }
+        // Last breakpoint at or before the minute; before the first one, the last one of the day before
+        int low = first;
+        int high = last;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (departures[middle] <= minute) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        boolean early = high < first;
+        int from = early ? last : high;
+        int fromMinute = early ? departures[last] - DAY : departures[from];
+        int to = from == last ? first : from + 1;
+        int toMinute = from == last && !early ? departures[first] + DAY : departures[to];
+        long change = (long) (durations[to] - durations[from]) * (minute - fromMinute);
+        return durations[from] + (int) Math.floorDiv(change, toMinute - fromMinute);
+    }
+
+    // Method to copy the profile id of every edge slot, so they can be patched for a new version
+    int[] copyEdgeProfiles() {
+        return edgeProfiles.clone();
+    }
+
+    // Method to check that a profile has increasing breakpoints within a day, no negative travel times and the FIFO property
+    static void validate(int[] departures, int[] durations) {
+        if (departures.length == 0 || departures.length != durations.length) {
+            throw new IllegalArgumentException("A travel-time profile needs one travel time per departure minute, and at least one");
+        }
+        for (int i = 0; i < departures.length; i++) {
+            if (departures[i] < 0 || departures[i] >= DAY || (i > 0 && departures[i] <= departures[i - 1])) {
+                throw new IllegalArgumentException("Departure minutes must increase within 0.." + (DAY - 1) + ": " + Arrays.toString(departures));
+            }
+            if (durations[i] < 0) {
+                throw new IllegalArgumentException("Negative travel time " + durations[i] + " at minute " + departures[i]);
+            }
+            int next = (i + 1) % departures.length;
+            int gap = next == 0 ? departures[0] + DAY - departures[i] : departures[next] - departures[i];
+            if (departures.length > 1 && durations[i] - durations[next] > gap) {
+                throw new IllegalArgumentException("Travel time falls faster than time passes after minute " + departures[i]
+                        + ", so leaving later would arrive earlier");
+            }
+        }
+    }
+
+    // Class collecting the distinct profiles of a Graph; edges refer to them by id. Profiles stay stored after
+    // their edges are removed or given other ones, until the Graph compacts the builder once it has doubled.
+    static class Builder {
+        private static final int MIN_COMPACT_AT = 64;
+
+        private final Map<List<Integer>, Integer> ids = new HashMap<>();    // Breakpoints -> profile id
+        private int[] starts = new int[] {0};
+        private int[] departures = new int[16];
+        private int[] durations = new int[16];
+        private int profileCount;
+        private int compactAt = MIN_COMPACT_AT;    // Profile count from which compacting is worth a walk over the edges
+
+        int profileCount() {
+            return profileCount;
+        }
+
+        boolean needsCompaction() {
+            return profileCount >= compactAt;
+        }
+
+        // Method to drop the profiles no edge uses; returns the new id of every old one, -1 for a dropped one
+        int[] compact(boolean[] used) {
+            int[] renumbered = new int[profileCount];
+            int kept = 0;
+            for (int profile = 0; profile < profileCount; profile++) {
+                if (!used[profile]) {
+                    renumbered[profile] = -1;
+                    continue;
+                }
+                int from = starts[profile];
+                int length = starts[profile + 1] - from;
+                int to = starts[kept];    // Moves towards the front, never over breakpoints still to be read
+                System.arraycopy(departures, from, departures, to, length);
+                System.arraycopy(durations, from, durations, to, length);
+                starts[kept + 1] = to + length;
+                renumbered[profile] = kept++;
+            }
+            profileCount = kept;
+            ids.values().removeIf(profile -> renumbered[profile] < 0);
+            ids.replaceAll((key, profile) -> renumbered[profile]);
+            compactAt = Math.max(MIN_COMPACT_AT, 2 * kept);
+            return renumbered;
+        }
+
+        // Method to get the id of a validated profile, storing it unless an identical one exists
+        int add(int[] departures, int[] durations) {
+            List<Integer> key = new ArrayList<>(departures.length * 2);
+            for (int i = 0; i < departures.length; i++) {
+                key.add(departures[i]);
+                key.add(durations[i]);
+            }
+            Integer existing = ids.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            int used = starts[profileCount];
+            int needed = used + departures.length;
+            if (needed > this.departures.length) {
+                int capacity = Math.max(needed, this.departures.length * 2);
+                this.departures = Arrays.copyOf(this.departures, capacity);
+                this.durations = Arrays.copyOf(this.durations, capacity);
+            }
+            System.arraycopy(departures, 0, this.departures, used, departures.length);
+            System.arraycopy(durations, 0, this.durations, used, durations.length);
+            if (profileCount + 1 == starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[++profileCount] = needed;
+            ids.put(key, profileCount - 1);
+            return profileCount - 1;
+        }
+
+        // Method to freeze the profiles for a CsrGraph whose slots use the given profile ids
+        TimeProfiles build(int[] edgeProfiles) {
+            int used = starts[profileCount];
+            return new TimeProfiles(edgeProfiles, Arrays.copyOf(starts, profileCount + 1),
+                    Arrays.copyOf(departures, used), Arrays.copyOf(durations, used));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package pdsa;
+
+import java.util.*;
+
+// Class routing from start to end through a list of interest points.
+// In the given order the optimal route is simply the chain of shortest legs between consecutive
+// points. When any order is allowed, the distances between all points are computed in parallel
+// and the visiting order is solved exactly with Held-Karp dynamic programming for small sets,
+// or with nearest-neighbour construction plus 2-opt improvement for larger ones.
+class WaypointRouter {
+    static final int HELD_KARP_LIMIT = 12;    // Largest number of interest points solved exactly (O(2^n * n^2))
+
+    private static final long UNREACHABLE = ShortestPathEngine.UNREACHABLE;
+
+    private final CsrGraph graph;
+    private final ShortestPathEngine engine;
+
+    WaypointRouter(CsrGraph graph) {
+        this.graph = graph;
+        this.engine = new ShortestPathEngine(graph);
+    }
+
+    // Method to find the shortest route visiting the interest points in the given order
+    Graph.PathWithDistance inOrder(int start, int[] interests, int end) {
+        int[] stops = new int[interests.length + 2];
+        stops[0] = start;
+        System.arraycopy(interests, 0, stops, 1, interests.length);
+        stops[stops.length - 1] = end;
+        return chain(stops);
+    }
+
+    // Method to find the shortest route visiting every interest point in any order
+    Graph.PathWithDistance anyOrder(int start, int[] interests, int end) {
+        for (int node : interests) {
+            if (node < 0) {
+                return new Graph.PathWithDistance(Collections.emptyList(), 0);
+            }
+        }
+        if (start < 0 || end < 0) {
+            return new Graph.PathWithDistance(Collections.emptyList(), 0);
+        }
+        int count = interests.length;
+        if (count == 0) {
+            return chain(new int[]{start, end});
+        }
+
+        // Points: 0 = start, 1..count = interests, count + 1 = end
+        int[] points = new int[count + 2];
+        points[0] = start;
+        System.arraycopy(interests, 0, points, 1, count);
+        points[count + 1] = end;
+        DistanceMatrix matrix = DistanceMatrix.compute(graph, points, points);
+        long[][] distances = new long[points.length][points.length];
+        for (int i = 0; i < points.length; i++) {
+            for (int j = 0; j < points.length; j++) {
+                distances[i][j] = matrix.get(i, j);
+            }
+        }
+
+        int[] order = count <= HELD_KARP_LIMIT ? heldKarp(distances, count) : nearestNeighbourTwoOpt(distances, count);
+        if (order == null) {
+            return new Graph.PathWithDistance(Collections.emptyList(), 0);
+        }
+        int[] stops = new int[count + 2];
+        stops[0] = start;
+        for (int i = 0; i < count; i++) {
+            stops[i + 1] = interests[order[i] - 1];
+        }
+        stops[count + 1] = end;
+        return chain(stops);
+    }
+
+    // Method to join the shortest legs between consecutive stops into one route
+    private Graph.PathWithDistance chain(int[] stops) {
+        for (int node : stops) {
+            if (node < 0) {
+                return new Graph.PathWithDistance(Collections.emptyList(), 0);
+            }
+        }
+        List<String> path = new ArrayList<>();
+        path.add(graph.name(stops[0]));
+        long total = 0;
+        for (int i = 0; i + 1 < stops.length; i++) {
+            ShortestPathEngine.NodePath leg = engine.nodePath(stops[i], stops[i + 1], null, null);
+            if (leg == null) {
+                return new Graph.PathWithDistance(Collections.emptyList(), 0); // One of the legs has no path
+            }
+            for (int j = 1; j < leg.nodes.length; j++) {
+                path.add(graph.name(leg.nodes[j]));
+            }
+            total += leg.distance();
+        }
+        if (total >= UNREACHABLE) {
+            return new Graph.PathWithDistance(Collections.emptyList(), 0);
+        }
+        return new Graph.PathWithDistance(path, (int) total);
+    }
+
+    // Method to find the best visiting order of points 1..count exactly; returns null if no order reaches end
+    static int[] heldKarp(long[][] distances, int count) {
+        int full = (1 << count) - 1;
+        int end = count + 1;
+        long[][] best = new long[1 << count][count];
+        int[][] previous = new int[1 << count][count];
+        for (long[] row : best) {
+            Arrays.fill(row, UNREACHABLE);
+        }
+        for (int j = 0; j < count; j++) {
+            best[1 << j][j] = distances[0][j + 1];
+            previous[1 << j][j] = -1;
+        }
+        for (int mask = 1; mask <= full; mask++) {
+            for (int last = 0; last < count; last++) {
+                if ((mask & (1 << last)) == 0 || best[mask][last] >= UNREACHABLE) continue;
+                for (int next = 0; next < count; next++) {
+                    if ((mask & (1 << next)) != 0) continue;
+                    long candidate = best[mask][last] + distances[last + 1][next + 1];
+                    int nextMask = mask | (1 << next);
+                    if (candidate < best[nextMask][next]) {
+                        best[nextMask][next] = candidate;
+                        previous[nextMask][next] = last;
+                    }
+                }
+            }
+        }
+
+        long bestTotal = UNREACHABLE;
+        int bestLast = -1;
+        for (int last = 0; last < count; last++) {
+            long total = best[full][last] + distances[last + 1][end];
+            if (best[full][last] < UNREACHABLE && total < bestTotal) {
+                bestTotal = total;
+                bestLast = last;
+            }
+        }
+        if (bestLast < 0) {
+            return null;
+        }
+        int[] order = new int[count];
+        for (int mask = full, last = bestLast, i = count - 1; last != -1; i--) {
+            order[i] = last + 1;
+            int before = previous[mask][last];
+            mask &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    // Method to find a good visiting order of points 1..count greedily, then shorten it with 2-opt moves
+    static int[] nearestNeighbourTwoOpt(long[][] distances, int count) {
+        int end = count + 1;
+        int[] order = new int[count];
+        boolean[] used = new boolean[count + 1];
+        int current = 0;
+        for (int i = 0; i < count; i++) {
+            int nearest = -1;
+            for (int candidate = 1; candidate <= count; candidate++) {
+                if (!used[candidate] && (nearest < 0 || distances[current][candidate] < distances[current][nearest])) {
+                    nearest = candidate;
+                }
+            }
+            used[nearest] = true;
+            order[i] = nearest;
+            current = nearest;
+        }
+
+        // Tour is 0, order[0..count-1], end; reversing order[i..j] swaps the edges around that segment
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < count - 1; i++) {
+                int before = i == 0 ? 0 : order[i - 1];
+                for (int j = i + 1; j < count; j++) {
+                    int after = j == count - 1 ? end : order[j + 1];
+                    long kept = distances[before][order[i]] + distances[order[j]][after];
+                    long reversed = distances[before][order[j]] + distances[order[i]][after];
+                    if (reversed < kept) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int swap = order[a];
+                            order[a] = order[b];
+                            order[b] = swap;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+        }
+
+        long total = distances[0][order[0]] + distances[order[count - 1]][end];
+        for (int i = 0; i + 1 < count; i++) {
+            total += distances[order[i]][order[i + 1]];
+        }
+        return total >= UNREACHABLE ? null : order;
+    }
+}
@@ -0,0 +1,61 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that A* finds the Dijkstra distance with both heuristics: ALT landmarks on small random graphs with
+// zero weights, self-loops and parallel roads, and straight-line distance on random maps with coordinates
+public class AStarSearchTest {
+
+    @Test
+    public void landmarksMatchDijkstra() {
+        Random random = new Random(11);
+        for (int round = 0; round < 300; round++) {
+            Graph graph = ContractionHierarchyTest.randomGraph(random);
+            assertMatchesDijkstra(graph, AStarSearch.withLandmarks(graph, 1 + random.nextInt(4)));
+        }
+        Graph graph = Graph.exampleGraph();
+        assertMatchesDijkstra(graph, AStarSearch.withLandmarks(graph, 3));
+    }
+
+    @Test
+    public void coordinatesMatchDijkstra() {
+        Random random = new Random(12);
+        for (int round = 0; round < 300; round++) {
+            int cities = 1 + random.nextInt(10);
+            Map<String, double[]> coordinates = new HashMap<>();
+            for (int city = 0; city < cities; city++) {
+                coordinates.put("c" + city, new double[] {random.nextInt(50), random.nextInt(50)});
+            }
+            Graph graph = new Graph(0);
+            for (int city = 0; city < cities; city++) {
+                graph.addEdge("c" + city, "c" + city, 0);    // Every city on the map, even without roads
+            }
+            for (int i = random.nextInt(3 * cities); i > 0; i--) {
+                String a = "c" + random.nextInt(cities);
+                String b = "c" + random.nextInt(cities);
+                double length = Math.hypot(coordinates.get(a)[0] - coordinates.get(b)[0], coordinates.get(a)[1] - coordinates.get(b)[1]);
+                graph.addEdge(a, b, (int) Math.ceil(length) + random.nextInt(30));    // Roads wind, some more than others
+            }
+            assertMatchesDijkstra(graph, AStarSearch.withCoordinates(graph, coordinates));
+        }
+    }
+
+    // Method to compare A* with a plain Dijkstra for every pair of cities
+    private static void assertMatchesDijkstra(Graph graph, AStarSearch search) {
+        for (String start : graph.adjacencyList.keySet()) {
+            for (String end : graph.adjacencyList.keySet()) {
+                Graph.PathWithDistance expected = graph.shortestPath(start, end);
+                Graph.PathWithDistance actual = search.shortestPath(start, end);
+                assertEquals(start + " -> " + end, expected.distance, actual.distance);
+                assertEquals(start + " -> " + end, expected.path.isEmpty(), actual.path.isEmpty());
+                if (!actual.path.isEmpty()) {
+                    assertEquals(start, actual.path.get(0));
+                    assertEquals(end, actual.path.get(actual.path.size() - 1));
+                    assertEquals(start + " -> " + end, actual.distance, ContractionHierarchyTest.length(graph, actual.path));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package pdsa;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test the bulk importer on small fixtures: repeated edges, self-loops and the numbering of the nodes
+public class BulkLoaderTest {
+
+    @Test
+    public void repeatedLinesAreCountedOnce() throws IOException {
+        BulkLoader.Result result = BulkLoader.load(file(
+                "A,B,5",
+                "B,A,5",      // Repeats A,B,5 the other way round
+                "A,B,5",      // Repeats it again
+                "A,B,6",      // Same pair, other weight: a separate edge
+                "A,A,3",
+                "A,A,3",      // Repeated self-loop
+                "A,A,4",
+                "B,C,1"), null, null);
+        assertEquals(3, result.duplicates);
+        assertEquals(0, result.rejected);
+        CsrGraph graph = result.graph;
+        assertEquals(5, graph.edgeCount() / 2);    // A-B 5, A-B 6, A-A 3, A-A 4 and B-C 1
+        assertEquals(6, graph.shortestPath("A", "C").distance);
+    }
+
+    @Test
+    public void nodesAreNumberedByName() throws IOException {
+        List<String> lines = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            lines.add("city" + random.nextInt(500) + ",city" + random.nextInt(500) + "," + random.nextInt(100));
+        }
+        Path edges = file(lines.toArray(new String[0]));
+        CsrGraph first = BulkLoader.load(edges, null, null).graph;
+        for (int node = 1; node < first.nodeCount(); node++) {
+            assertTrue(first.name(node - 1).compareTo(first.name(node)) < 0);
+        }
+        CsrGraph second = BulkLoader.load(edges, null, null).graph;
+        assertEquals(first.nodeCount(), second.nodeCount());
+        assertEquals(first.edgeCount(), second.edgeCount());
+        for (int edge = 0; edge < first.edgeCount(); edge++) {
+            assertEquals(first.target(edge), second.target(edge));
+            assertEquals(first.weight(edge), second.weight(edge));
+        }
+    }
+
+    // Method to write lines to a temporary file
+    private static Path file(String... lines) throws IOException {
+        Path file = Files.createTempFile("edges", ".csv");
+        file.toFile().deleteOnExit();
+        Files.write(file, Arrays.asList(lines));
+        return file;
+    }
+}
@@ -0,0 +1,67 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that contraction hierarchy queries find the Dijkstra distance, over a path that really has it,
+// on the example map and on small random graphs with zero weights, self-loops and parallel roads
+public class ContractionHierarchyTest {
+
+    @Test
+    public void exampleMapMatchesDijkstra() {
+        assertMatchesDijkstra(Graph.exampleGraph());
+    }
+
+    @Test
+    public void randomSmallGraphsMatchDijkstra() {
+        Random random = new Random(3);
+        for (int round = 0; round < 300; round++) {
+            assertMatchesDijkstra(randomGraph(random));
+        }
+    }
+
+    // Method to compare the hierarchy with a plain Dijkstra for every pair of cities
+    private static void assertMatchesDijkstra(Graph graph) {
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        for (String start : graph.adjacencyList.keySet()) {
+            for (String end : graph.adjacencyList.keySet()) {
+                Graph.PathWithDistance expected = graph.shortestPath(start, end);
+                Graph.PathWithDistance actual = hierarchy.shortestPath(start, end);
+                assertEquals(start + " -> " + end, expected.distance, actual.distance);
+                assertEquals(start + " -> " + end, expected.path.isEmpty(), actual.path.isEmpty());
+                if (!actual.path.isEmpty()) {
+                    assertEquals(start, actual.path.get(0));
+                    assertEquals(end, actual.path.get(actual.path.size() - 1));
+                    assertEquals(start + " -> " + end, actual.distance, length(graph, actual.path));
+                }
+            }
+        }
+    }
+
+    // Method to add up the lightest road between each pair of neighbours on a path; fails if one has none
+    static int length(Graph graph, List<String> path) {
+        int length = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            String from = path.get(i);
+            String next = path.get(i + 1);
+            length += graph.adjacencyList.get(from).stream()
+                    .filter(edge -> edge.destination.equals(next))
+                    .mapToInt(edge -> edge.weight)
+                    .min()
+                    .orElseThrow(() -> new AssertionError("No road from " + from + " to " + next));
+        }
+        return length;
+    }
+
+    // Method to build a graph of up to ten cities, possibly disconnected, with weights from 0 to 20
+    static Graph randomGraph(Random random) {
+        Graph graph = new Graph(0);
+        int cities = 1 + random.nextInt(10);
+        int edges = random.nextInt(3 * cities);
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge("c" + random.nextInt(cities), "c" + random.nextInt(cities), random.nextInt(4) == 0 ? 0 : random.nextInt(21));
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,81 @@
+package pdsa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that a graph file loads back as the graph it was written from, and that corrupt edge and name sections are refused at load
+public class CsrGraphFileTest {
+    private static final int HEADER_BYTES = 24;
+
+    @Test
+    public void loadedGraphAnswersLikeTheOriginal() throws IOException {
+        Graph graph = Graph.exampleGraph();
+        CsrGraph loaded = CsrGraphFile.load(written(graph));
+        for (String start : graph.adjacencyList.keySet()) {
+            for (String end : graph.adjacencyList.keySet()) {
+                Graph.PathWithDistance expected = graph.shortestPath(start, end);
+                Graph.PathWithDistance actual = loaded.shortestPath(start, end);
+                assertEquals(expected.path, actual.path);
+                assertEquals(expected.distance, actual.distance);
+            }
+        }
+    }
+
+    @Test
+    public void decreasingOffsetsAreRefused() throws IOException {
+        Graph graph = Graph.exampleGraph();
+        assertCorrupt(written(graph), HEADER_BYTES + 4, graph.freeze().edgeCount() + 1);
+    }
+
+    @Test
+    public void targetOutOfRangeIsRefused() throws IOException {
+        Graph graph = Graph.exampleGraph();
+        int nodeCount = graph.adjacencyList.size();
+        assertCorrupt(written(graph), HEADER_BYTES + 4 * (nodeCount + 1), nodeCount);
+        assertCorrupt(written(graph), HEADER_BYTES + 4 * (nodeCount + 1), -1);
+    }
+
+    @Test
+    public void negativeWeightIsRefused() throws IOException {
+        Graph graph = Graph.exampleGraph();
+        CsrGraph frozen = graph.freeze();
+        assertCorrupt(written(graph), HEADER_BYTES + 4 * (frozen.nodeCount() + 1 + frozen.edgeCount()), -5);
+    }
+
+    @Test
+    public void badNameOffsetsAreRefused() throws IOException {
+        Graph graph = Graph.exampleGraph();
+        CsrGraph frozen = graph.freeze();
+        int names = HEADER_BYTES + 4 * (frozen.nodeCount() + 1 + 2 * frozen.edgeCount());
+        int lastOffset = names + 4 * (1 + frozen.nodeCount());
+        assertCorrupt(written(graph), lastOffset, -7);
+        assertCorrupt(written(graph), lastOffset, Integer.MAX_VALUE);
+        assertCorrupt(written(graph), names + 8, 1 << 20);    // The second name would end past the last
+        assertCorrupt(written(graph), names, -1);
+    }
+
+    // Method to write a graph to a temporary file
+    private static Path written(Graph graph) throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        file.toFile().deleteOnExit();
+        CsrGraphFile.write(graph, file);
+        return file;
+    }
+
+    // Method to overwrite one int of a graph file and check that loading it fails
+    private static void assertCorrupt(Path file, int position, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(position, value);
+        Files.write(file, bytes);
+        try {
+            CsrGraphFile.load(file);
+            fail("Loaded a corrupt graph file");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Corrupt graph file"));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that searches give up once the deadline bound to their thread has passed, and answer normally without one
+public class DeadlineTest {
+
+    @Test
+    public void searchesStopAfterTheDeadline() {
+        Graph graph = grid(80);
+        Deadline previous = Deadline.bind(new Deadline(System.nanoTime() - 1));
+        try {
+            assertExceeded(() -> graph.shortestPath("0,0", "79,79"));
+            assertExceeded(() -> graph.findPathWithMinStops("0,0", "79,79"));
+            assertExceeded(() -> graph.paretoRoutes("0,0", "79,79"));
+            assertExceeded(() -> graph.pathThroughInterestPointsAnyOrder("0,0", Arrays.asList("40,0", "0,40"), "79,79"));
+        } finally {
+            Deadline.unbind(previous);
+        }
+        assertNull(Deadline.current());
+        assertEquals(158, graph.shortestPath("0,0", "79,79").distance);    // Nothing half-finished was cached
+        assertEquals(158, graph.findPathWithMinStops("0,0", "79,79").stops);
+        assertFalse(graph.paretoRoutes("0,0", "79,79").isEmpty());
+    }
+
+    @Test
+    public void searchesWithinTheDeadlineFinish() {
+        Graph graph = grid(30);
+        Deadline previous = Deadline.bind(new Deadline(System.nanoTime() + 60_000_000_000L));
+        try {
+            assertEquals(58, graph.shortestPath("0,0", "29,29").distance);
+        } finally {
+            Deadline.unbind(previous);
+        }
+    }
+
+    // Method to build a size x size grid of unit-weight roads named "x,y"
+    private static Graph grid(int size) {
+        Graph graph = new Graph();
+        graph.batch(batch -> {
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    if (x + 1 < size) batch.addEdge(x + "," + y, (x + 1) + "," + y, 1);
+                    if (y + 1 < size) batch.addEdge(x + "," + y, x + "," + (y + 1), 1);
+                }
+            }
+        });
+        return graph;
+    }
+
+    private static void assertExceeded(Runnable query) {
+        try {
+            query.run();
+            fail("The query should have run past its deadline");
+        } catch (Deadline.Exceeded expected) {
+        }
+    }
+}
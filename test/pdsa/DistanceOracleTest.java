@@ -0,0 +1,60 @@
+package pdsa;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that a Graph answers its queries from a built or attached distance oracle, and keeps it right through weight changes
+public class DistanceOracleTest {
+
+    @Test
+    public void oracleFollowsWeightChanges() {
+        Graph graph = Graph.exampleGraph();
+        graph.distanceOracle();
+        graph.updateEdgeWeight("Kurunagala", "Kandy", 5);
+        graph.updateEdgeWeight("Negombo", "Marawila", 90);
+        assertSameDistances(graph);
+        assertTrue(graph.distanceOracle().isCurrent(graph.snapshot()));
+        assertEquals(graph.shortestPath("Negombo", "Kandy").distance, graph.distanceOracle().distance("Negombo", "Kandy"));
+    }
+
+    @Test
+    public void loadedOracleServesTheGraph() throws IOException {
+        Graph graph = Graph.exampleGraph();
+        Path file = Files.createTempFile("oracle", ".bin");
+        file.toFile().deleteOnExit();
+        DistanceOracle.of(graph).write(file);
+        DistanceOracle loaded = DistanceOracle.load(file, graph.snapshot());
+        graph.attachDistanceOracle(loaded);
+        assertSame(loaded, graph.distanceOracle());
+        assertSameDistances(graph);
+        graph.updateEdgeWeight("Galagedara", "Kandy", 1);
+        assertSameDistances(graph);
+    }
+
+    @Test
+    public void oracleOfAnotherGraphIsRefused() {
+        Graph graph = Graph.exampleGraph();
+        try {
+            graph.attachDistanceOracle(DistanceOracle.of(Graph.exampleGraph()));
+            fail("Attached the oracle of another graph");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // Method to compare every shortest distance of the graph with a plain Dijkstra on a fresh copy of its snapshot
+    private static void assertSameDistances(Graph graph) {
+        CsrGraph current = graph.snapshot();
+        ShortestPathEngine engine = new ShortestPathEngine(current);
+        for (int a = 0; a < current.nodeCount(); a++) {
+            for (int b = 0; b < current.nodeCount(); b++) {
+                Graph.PathWithDistance expected = engine.shortestPath(a, b, null);
+                Graph.PathWithDistance actual = graph.shortestPath(current.name(a), current.name(b));
+                assertEquals(expected.distance, actual.distance);
+                assertEquals(expected.path.size() > 0, actual.path.size() > 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that a batch which throws leaves the graph, and what readers see, exactly as before it started
+public class GraphBatchTest {
+
+    @Test
+    public void failedBatchPublishesNothing() {
+        Graph graph = Graph.exampleGraph();
+        Graph.PathWithDistance before = graph.shortestPath("Negombo", "Kandy");
+        long version = graph.version();
+        String edges = describe(graph);
+        String places = graph.placesOfInterest.toString();
+        List<Graph.PathWithDistance> changed = new ArrayList<>();
+        try {
+            graph.batch(batch -> {
+                batch.addEdge("Negombo", "Kandy", 1);
+                batch.addEdge("Kandy", "Matale", 2);
+                batch.updateEdgeWeight("Negombo", "Marawila", 0);
+                batch.addPlaceOfInterest("Matale", "Spice garden");
+                batch.addPlaceOfInterest("Kandy", "Lake");
+                batch.removeNode("Kurunagala");
+                changed.add(batch.shortestPath("Negombo", "Matale"));    // Reads the batch's own writes
+                batch.updateEdgeWeight("Negombo", "Nowhere", 3);    // Throws: no such edge
+            });
+            fail("The batch should have thrown");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(3, changed.get(0).distance);
+        assertEquals(version, graph.version());
+        assertEquals(edges, describe(graph));
+        assertEquals(places, graph.placesOfInterest.toString());
+        Graph.PathWithDistance after = graph.shortestPath("Negombo", "Kandy");
+        assertEquals(before.path, after.path);
+        assertEquals(before.distance, after.distance);
+        assertTrue(graph.shortestPath("Negombo", "Matale").path.isEmpty());
+    }
+
+    @Test
+    public void nestedFailureKeepsOuterChanges() {
+        Graph graph = new Graph();
+        graph.addEdge("A", "B", 5);
+        graph.batch(batch -> {
+            batch.addEdge("B", "C", 1);
+            try {
+                batch.batch(inner -> {
+                    inner.updateEdgeWeight("A", "B", 1);
+                    inner.removeNode("Nowhere");
+                });
+                fail("The inner batch should have thrown");
+            } catch (IllegalArgumentException expected) {
+            }
+        });
+        Graph.PathWithDistance path = graph.shortestPath("A", "C");
+        assertEquals(Arrays.asList("A", "B", "C"), path.path);
+        assertEquals(6, path.distance);
+    }
+
+    // Method to list every edge with its weight, per node in key order
+    private static String describe(Graph graph) {
+        StringBuilder text = new StringBuilder();
+        for (String node : new TreeSet<>(graph.adjacencyList.keySet())) {
+            text.append(node).append(':');
+            for (Graph.Edge edge : graph.adjacencyList.get(node)) {
+                text.append(' ').append(edge.destination).append('=').append(edge.weight);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Regression test for the breadth-first findPathWithMinStops: it must return the same path as the
+// exhaustive DFS it replaced, and finish on a graph with a million edges.
+public class MinStopsSearchTest {
+
+    @Test
+    public void exampleMapMatchesOldDfs() {
+        Graph graph = Graph.exampleGraph();
+        for (String start : graph.adjacencyList.keySet()) {
+            for (String end : graph.adjacencyList.keySet()) {
+                assertSamePath(graph, start, end);
+            }
+        }
+    }
+
+    @Test
+    public void randomSmallGraphsMatchOldDfs() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            Graph graph = new Graph(0);
+            int cities = 2 + random.nextInt(7);
+            int edges = random.nextInt(2 * cities);
+            for (int i = 0; i < edges; i++) {
+                int a = random.nextInt(cities);
+                int b = random.nextInt(cities);
+                if (a != b) {
+                    graph.addEdge("c" + a, "c" + b, 1 + random.nextInt(50));
+                }
+            }
+            for (String start : graph.adjacencyList.keySet()) {
+                for (String end : graph.adjacencyList.keySet()) {
+                    assertSamePath(graph, start, end);
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void millionEdgeGraphFinishes() {
+        int cities = 200_000;
+        int edges = 1_000_000;
+        Random random = new Random(7);
+        Graph graph = new Graph(0);
+        graph.batch(batch -> {
+            for (int i = 0; i + 1 < cities; i++) {
+                batch.addEdge("c" + i, "c" + (i + 1), 1 + random.nextInt(20));    // A chain, so every city is reachable
+            }
+            for (int i = cities - 1; i < edges; i++) {
+                batch.addEdge("c" + random.nextInt(cities), "c" + random.nextInt(cities), 1 + random.nextInt(100));
+            }
+        });
+        for (int query = 0; query < 5; query++) {
+            String start = "c" + random.nextInt(cities);
+            String end = "c" + random.nextInt(cities);
+            Graph.PathWithStops found = graph.findPathWithMinStops(start, end);
+            assertEquals(fewestStops(graph, start, end), found.stops);
+            assertEquals(found.stops + 1, found.path.size());
+            assertEquals(start, found.path.get(0));
+            assertEquals(end, found.path.get(found.path.size() - 1));
+            for (int i = 0; i + 1 < found.path.size(); i++) {
+                String next = found.path.get(i + 1);
+                assertTrue(graph.adjacencyList.get(found.path.get(i)).stream().anyMatch(edge -> edge.destination.equals(next)));
+            }
+        }
+    }
+
+    // Method to compare the new search with the old DFS for one pair of cities
+    private static void assertSamePath(Graph graph, String start, String end) {
+        Graph.PathWithStops expected = findPathWithMinStopsDfs(graph, start, end);
+        Graph.PathWithStops actual = graph.findPathWithMinStops(start, end);
+        assertEquals(start + " -> " + end, expected.path, actual.path);
+        assertEquals(start + " -> " + end, expected.stops, actual.stops);
+    }
+
+    // Method reproducing the exhaustive DFS that findPathWithMinStops used before: the first of all simple
+    // paths, in adjacency order, with the fewest stops
+    private static Graph.PathWithStops findPathWithMinStopsDfs(Graph graph, String start, String end) {
+        List<Graph.PathWithStops> allPaths = new ArrayList<>();
+        findPathsMinStopsDfs(graph, start, end, new HashSet<>(), new ArrayList<>(), allPaths, 0);
+        if (allPaths.isEmpty()) {
+            return new Graph.PathWithStops(Collections.emptyList(), Integer.MAX_VALUE);
+        }
+        Graph.PathWithStops minStopsPath = allPaths.get(0);
+        for (Graph.PathWithStops path : allPaths) {
+            if (path.stops < minStopsPath.stops) {
+                minStopsPath = path;
+            }
+        }
+        return minStopsPath;
+    }
+
+    private static void findPathsMinStopsDfs(Graph graph, String current, String end, Set<String> visited, List<String> currentPath, List<Graph.PathWithStops> paths, int stops) {
+        visited.add(current);
+        currentPath.add(current);
+        if (current.equals(end)) {
+            paths.add(new Graph.PathWithStops(new ArrayList<>(currentPath), stops));
+        } else {
+            for (Graph.Edge edge : graph.adjacencyList.get(current)) {
+                if (!visited.contains(edge.destination)) {
+                    findPathsMinStopsDfs(graph, edge.destination, end, visited, currentPath, paths, stops + 1);
+                }
+            }
+        }
+        currentPath.remove(currentPath.size() - 1);
+        visited.remove(current);
+    }
+
+    // Method counting the fewest stops with a plain BFS over the adjacency list
+    private static int fewestStops(Graph graph, String start, String end) {
+        Map<String, Integer> stops = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        stops.put(start, 0);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (current.equals(end)) {
+                return stops.get(current);
+            }
+            for (Graph.Edge edge : graph.adjacencyList.get(current)) {
+                if (stops.putIfAbsent(edge.destination, stops.get(current) + 1) == null) {
+                    queue.add(edge.destination);
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+}
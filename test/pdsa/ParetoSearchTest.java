@@ -0,0 +1,95 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that the Pareto search returns the same (distance, stops) front as an exhaustive DFS over every
+// simple path, with and without avoided nodes and a maximum distance, on small random graphs with zero
+// weights, self-loops and parallel roads
+public class ParetoSearchTest {
+
+    @Test
+    public void exampleMapMatchesDfs() {
+        Graph graph = Graph.exampleGraph();
+        for (String start : graph.adjacencyList.keySet()) {
+            for (String end : graph.adjacencyList.keySet()) {
+                assertMatchesDfs(graph, start, end, Collections.emptySet(), Integer.MAX_VALUE);
+                assertMatchesDfs(graph, start, end, Collections.singleton("Kurunagala"), 150);
+            }
+        }
+    }
+
+    @Test
+    public void randomSmallGraphsMatchDfs() {
+        Random random = new Random(18);
+        for (int round = 0; round < 300; round++) {
+            Graph graph = ContractionHierarchyTest.randomGraph(random);
+            List<String> cities = new ArrayList<>(graph.adjacencyList.keySet());
+            for (String start : cities) {
+                for (String end : cities) {
+                    Set<String> avoid = new HashSet<>();
+                    for (String city : cities) {
+                        if (random.nextInt(4) == 0) {
+                            avoid.add(city);
+                        }
+                    }
+                    assertMatchesDfs(graph, start, end, Collections.emptySet(), Integer.MAX_VALUE);
+                    assertMatchesDfs(graph, start, end, avoid, random.nextBoolean() ? Integer.MAX_VALUE : random.nextInt(40));
+                }
+            }
+        }
+    }
+
+    // Method to compare the search's front with the exhaustive one for one query, and check each route is real
+    private static void assertMatchesDfs(Graph graph, String start, String end, Set<String> avoid, int maxDistance) {
+        String query = start + " -> " + end + " avoiding " + avoid + " within " + maxDistance;
+        List<Graph.PathWithDistance> routes = graph.paretoRoutes(start, end, avoid, maxDistance);
+        List<List<Integer>> actual = new ArrayList<>();
+        for (Graph.PathWithDistance route : routes) {
+            actual.add(Arrays.asList(route.distance, route.path.size() - 1));
+            assertEquals(query, start, route.path.get(0));
+            assertEquals(query, end, route.path.get(route.path.size() - 1));
+            assertEquals(query, route.distance, ContractionHierarchyTest.length(graph, route.path));
+            assertTrue(query, Collections.disjoint(avoid, route.path));
+        }
+        assertEquals(query, front(graph, start, end, avoid, maxDistance), actual);
+    }
+
+    // Method to find the (distance, stops) pairs no simple path beats on both, shortest first; avoiding
+    // either end leaves no path
+    private static List<List<Integer>> front(Graph graph, String start, String end, Set<String> avoid, int maxDistance) {
+        if (avoid.contains(start) || avoid.contains(end)) {
+            return new ArrayList<>();
+        }
+        TreeMap<Integer, Integer> fewestStops = new TreeMap<>();    // Distance -> fewest stops of a path that long
+        dfs(graph, start, end, avoid, new HashSet<>(), 0, 0, maxDistance, fewestStops);
+        List<List<Integer>> front = new ArrayList<>();
+        int stopsToBeat = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, Integer> entry : fewestStops.entrySet()) {
+            if (entry.getValue() < stopsToBeat) {
+                front.add(Arrays.asList(entry.getKey(), entry.getValue()));
+                stopsToBeat = entry.getValue();
+            }
+        }
+        return front;
+    }
+
+    private static void dfs(Graph graph, String current, String end, Set<String> avoid, Set<String> visited, int distance, int stops,
+                            int maxDistance, TreeMap<Integer, Integer> fewestStops) {
+        if (distance > maxDistance) {
+            return;
+        }
+        if (current.equals(end)) {
+            fewestStops.merge(distance, stops, Math::min);
+            return;
+        }
+        visited.add(current);
+        for (Graph.Edge edge : graph.adjacencyList.get(current)) {
+            if (!visited.contains(edge.destination) && !avoid.contains(edge.destination)) {
+                dfs(graph, edge.destination, end, avoid, visited, distance + edge.weight, stops + 1, maxDistance, fewestStops);
+            }
+        }
+        visited.remove(current);
+    }
+}
@@ -0,0 +1,112 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that the typo-tolerant place search finds exactly the places a brute-force edit distance finds:
+// those with a word from which some prefix, starting with the query's first character, is within the
+// allowed insertions, deletions, substitutions and swaps of neighbouring characters, fewest edits first
+public class PlaceIndexTest {
+    private static final String LETTERS = "abc";    // Few letters, so near misses are common
+
+    @Test
+    public void exampleMapMatchesBruteForce() {
+        Graph graph = Graph.exampleGraph();
+        PlaceIndex index = PlaceIndex.of(graph);
+        for (String query : Arrays.asList("l", "la", "hotle", "amgi", "cloc tower", "rvier bank", "sri dlada", "lake", "kurungala")) {
+            for (int maxEdits = 0; maxEdits <= 2; maxEdits++) {
+                assertMatchesBruteForce(graph, index, query, maxEdits);
+            }
+        }
+    }
+
+    @Test
+    public void randomNamesMatchBruteForce() {
+        Random random = new Random(17);
+        for (int round = 0; round < 100; round++) {
+            Graph graph = new Graph(0);
+            graph.addEdge("c0", "c1", 1);
+            graph.addEdge("c1", "c2", 1);
+            for (int i = 1 + random.nextInt(12); i > 0; i--) {
+                graph.addPlaceOfInterest("c" + random.nextInt(3), name(random, 1 + random.nextInt(3)));
+            }
+            PlaceIndex index = PlaceIndex.of(graph);
+            for (int query = 0; query < 100; query++) {
+                String key = name(random, 1 + random.nextInt(2));
+                assertMatchesBruteForce(graph, index, key.substring(0, 1 + random.nextInt(key.length())), random.nextInt(3));
+            }
+        }
+    }
+
+    // Method to make a random name of the given number of words of one to four letters, in mixed case
+    private static String name(Random random, int words) {
+        StringBuilder name = new StringBuilder();
+        for (int word = 0; word < words; word++) {
+            name.append(word == 0 ? "" : random.nextBoolean() ? " " : "  ");
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                char c = LETTERS.charAt(random.nextInt(LETTERS.length()));
+                name.append(random.nextInt(5) == 0 ? Character.toUpperCase(c) : c);
+            }
+        }
+        return name.toString();
+    }
+
+    // Method to compare one search with the brute force over every place of the graph
+    private static void assertMatchesBruteForce(Graph graph, PlaceIndex index, String query, int maxEdits) {
+        String key = PlaceIndex.normalise(query);
+        Map<String, Integer> expected = new TreeMap<>();
+        for (List<String> places : graph.placesOfInterest.values()) {
+            for (String place : places) {
+                int edits = edits(key, PlaceIndex.normalise(place));
+                if (edits <= maxEdits) {
+                    expected.put(PlaceIndex.normalise(place), edits);
+                }
+            }
+        }
+        Map<String, Integer> actual = new TreeMap<>();
+        int lastEdits = 0;
+        for (PlaceIndex.Match match : index.search(query, maxEdits, Integer.MAX_VALUE)) {
+            assertFalse(query + " found " + match.place + " twice", actual.containsKey(PlaceIndex.normalise(match.place)));
+            actual.put(PlaceIndex.normalise(match.place), match.edits);
+            assertTrue(query + " gave " + match.place + " after a match with more edits", match.edits >= lastEdits);
+            lastEdits = match.edits;
+        }
+        assertEquals("\"" + query + "\" within " + maxEdits, expected, actual);
+    }
+
+    // Method to find the fewest edits turning the query into a prefix, starting with the query's first
+    // character, of a word of the place and everything after it
+    private static int edits(String key, String place) {
+        int best = Integer.MAX_VALUE;
+        for (int start = 0; start < place.length(); start++) {
+            if (start > 0 && place.charAt(start - 1) != ' ') {
+                continue;
+            }
+            for (int end = start + 1; end <= place.length(); end++) {
+                if (place.charAt(start) == key.charAt(0)) {
+                    best = Math.min(best, distance(key, place.substring(start, end)));
+                }
+            }
+        }
+        return best;
+    }
+
+    // Method computing the edit distance with swaps of neighbouring characters (optimal string alignment)
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                    continue;
+                }
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
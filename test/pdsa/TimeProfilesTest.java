@@ -0,0 +1,110 @@
+package pdsa;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+// Test that travel-time profile changes patch the published snapshot like weight changes do, and that
+// profiles no edge uses any more are dropped from the graph's builder
+public class TimeProfilesTest {
+    private static final int[] RUSH_HOURS = {0, 420, 540, 960, 1140};
+    private static final int[] RUSH_TIMES = {30, 30, 90, 30, 80};
+
+    @Test
+    public void profileChangeKeepsTheEdges() {
+        Graph graph = Graph.exampleGraph();
+        CsrGraph before = graph.snapshot();
+        DistanceOracle tables = graph.distanceOracle();
+        graph.setTravelTimes("Negombo", "Marawila", RUSH_HOURS, RUSH_TIMES);
+        CsrGraph after = graph.snapshot();
+        assertNotSame(before, after);
+        assertTrue(after.sameEdges(before));
+        assertTrue(graph.distanceOracle().isCurrent(after));
+        assertEquals(tables.distance("Negombo", "Kandy"), graph.distanceOracle().distance("Negombo", "Kandy"));
+        assertEquals(77, graph.shortestPathDepartingAt("Negombo", "Marawila", 540).distance);    // Around by Kuliyapitiya at rush hour
+        assertSameTravelTimes(expected("Negombo", "Marawila"), graph);
+    }
+
+    @Test
+    public void replacedProfilesAreDropped() {
+        Graph graph = Graph.exampleGraph();
+        for (int i = 1; i <= 1000; i++) {
+            graph.setTravelTimes("Kurunagala", "Kandy", new int[] {0, 600}, new int[] {i, i + 10});
+            if (i % 100 == 0) {
+                graph.snapshot();    // Publish some versions through the patch path and some through a full freeze
+                graph.addEdge("Kandy", "Matale" + i, 25);
+            }
+        }
+        graph.setTravelTimes("Kurunagala", "Kandy", RUSH_HOURS, RUSH_TIMES);
+        assertTrue(graph.timeProfiles.profileCount() <= 64);
+        Graph expected = expected("Kurunagala", "Kandy");
+        for (int i = 100; i <= 1000; i += 100) {
+            expected.addEdge("Kandy", "Matale" + i, 25);
+        }
+        assertSameTravelTimes(expected, graph);
+    }
+
+    @Test
+    public void profilesOfRemovedEdgesAreDropped() {
+        Graph graph = Graph.exampleGraph();
+        for (int i = 0; i < 200; i++) {
+            graph.addEdge("Kandy", "Village" + i, 10);
+            graph.setTravelTimes("Kandy", "Village" + i, new int[] {0}, new int[] {i + 1});
+        }
+        for (int i = 0; i < 200; i++) {
+            graph.removeNode("Village" + i);
+        }
+        for (int i = 1; i <= 100; i++) {
+            graph.setTravelTimes("Negombo", "Marawila", new int[] {0}, new int[] {300 + i});
+        }
+        graph.setTravelTimes("Negombo", "Marawila", RUSH_HOURS, RUSH_TIMES);
+        assertTrue(graph.timeProfiles.profileCount() <= 64);
+        assertSameTravelTimes(expected("Negombo", "Marawila"), graph);
+    }
+
+    @Test
+    public void batchSeesItsOwnProfiles() {
+        Graph graph = Graph.exampleGraph();
+        assertEquals(28, graph.shortestPathDepartingAt("Negombo", "Marawila", 0).distance);
+        graph.batch(batch -> {
+            batch.setTravelTimes("Negombo", "Marawila", new int[] {0}, new int[] {50});
+            assertEquals(50, batch.shortestPathDepartingAt("Negombo", "Marawila", 0).distance);
+        });
+        assertEquals(50, graph.shortestPathDepartingAt("Negombo", "Marawila", 0).distance);
+    }
+
+    @Test
+    public void failedBatchKeepsTheProfiles() {
+        Graph graph = Graph.exampleGraph();
+        graph.setTravelTimes("Negombo", "Marawila", RUSH_HOURS, RUSH_TIMES);
+        try {
+            graph.batch(batch -> {
+                batch.setTravelTimes("Negombo", "Marawila", new int[] {0}, new int[] {5});
+                batch.setTravelTimes("Negombo", "Atlantis", new int[] {0}, new int[] {5});
+            });
+            fail("Gave travel times to a road that does not exist");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertSameTravelTimes(expected("Negombo", "Marawila"), graph);
+    }
+
+    // Method to build the example map with only the given road on rush-hour travel times
+    private static Graph expected(String source, String destination) {
+        Graph graph = Graph.exampleGraph();
+        graph.setTravelTimes(source, destination, RUSH_HOURS, RUSH_TIMES);
+        return graph;
+    }
+
+    // Method to compare departure-time routing between every pair of the example map's cities at several minutes
+    private static void assertSameTravelTimes(Graph expected, Graph actual) {
+        for (String start : expected.adjacencyList.keySet()) {
+            for (String end : expected.adjacencyList.keySet()) {
+                for (int departure = 0; departure < TimeProfiles.DAY; departure += 97) {
+                    assertEquals(start + " -> " + end + " at " + departure,
+                            expected.shortestPathDepartingAt(start, end, departure).distance,
+                            actual.shortestPathDepartingAt(start, end, departure).distance);
+                }
+            }
+        }
+    }
+}